@@ -1,10 +1,12 @@
 package controller;
 
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 import model.Release;
+import model.ReleaseIndex;
 import model.Ticket;
-import org.json.JSONArray;
-import org.json.JSONObject;
 import utils.JIRAUtils;
+import utils.JiraClient;
 
 import java.io.IOException;
 import java.net.URISyntaxException;
@@ -13,30 +15,21 @@ import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
 
+// The JIRA responses are read as JSON streams: only the fields used here are read, the others are skipped
 public class ExtractFromJIRA {
+    // Issues asked for each search page; the server may return fewer
+    private static final int SEARCH_PAGE_SIZE = 1000;
+
     private final String projectName;
+    private final JiraClient jiraClient;
 
     public ExtractFromJIRA(String projectName) {
         this.projectName = projectName.toUpperCase();
+        this.jiraClient = JiraClient.fromSettings();
     }
 
     public List<Release> getReleaseList() throws IOException {
-        List<Release> releaseList = new ArrayList<>();
-
-        String url = "https://issues.apache.org/jira/rest/api/latest/project/" + this.projectName;
-        JSONObject json = JIRAUtils.readJsonFromUrl(url);
-        JSONArray versions = json.getJSONArray("versions");
-
-        for (int i = 0; i < versions.length(); i++) {
-
-            JSONObject releaseJsonObject = versions.getJSONObject(i);
-
-            if (versions.getJSONObject(i).has("releaseDate") && versions.getJSONObject(i).has("name")) {
-                String releaseDate = releaseJsonObject.get("releaseDate").toString();
-                String releaseName = releaseJsonObject.get("name").toString();
-                releaseList.add(new Release(releaseName, LocalDate.parse(releaseDate)));
-            }
-        }
+        List<Release> releaseList = jiraClient.get("/rest/api/latest/project/" + this.projectName, this::readReleases);
 
         releaseList.sort(Comparator.comparing(Release::getDate));
         int j = 0;
@@ -46,64 +39,153 @@ public class ExtractFromJIRA {
         return releaseList;
     }
 
-    //Retrieving all tickets of type BUG with status CLOSED or RESOLVED and resolution equals to FIXED (not Unresolved or others)
-    public List<Ticket> getTicketList(List<Release> releasesList, boolean fix) throws IOException, URISyntaxException {
-        List<Ticket> ticketsList = new ArrayList<>();
-        int startIndex = 0;
-        int totalTickets;
-
-        do {
-            String url = buildJiraSearchUrl(startIndex);
-            JSONObject json = JIRAUtils.readJsonFromUrl(url);
-            JSONArray issues = json.getJSONArray("issues");
-            totalTickets = json.getInt("total");
+    private List<Release> readReleases(JsonReader reader) throws IOException {
+        List<Release> releaseList = new ArrayList<>();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if (!reader.nextName().equals("versions")) {
+                reader.skipValue();
+                continue;
+            }
+            reader.beginArray();
+            while (reader.hasNext()) {
+                Release release = readRelease(reader);
+                if (release != null) {
+                    releaseList.add(release);
+                }
+            }
+            reader.endArray();
+        }
+        reader.endObject();
+        return releaseList;
+    }
 
-            processIssues(issues, ticketsList, releasesList);
+    // Null for the versions without a name or a release date
+    private Release readRelease(JsonReader reader) throws IOException {
+        String releaseName = null;
+        String releaseDate = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String field = reader.nextName();
+            if (field.equals("name")) {
+                releaseName = nextStringOrNull(reader);
+            } else if (field.equals("releaseDate")) {
+                releaseDate = nextStringOrNull(reader);
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return releaseName != null && releaseDate != null ? new Release(releaseName, LocalDate.parse(releaseDate)) : null;
+    }
 
-            startIndex += issues.length(); // Increment startIndex by the number of issues processed in this batch
+    //Retrieving all tickets of type BUG with status CLOSED or RESOLVED and resolution equals to FIXED (not Unresolved or others)
+    public List<Ticket> getTicketList(List<Release> releasesList, boolean fix) throws IOException, URISyntaxException {
+        // Immutable, so the pages read concurrently share it
+        ReleaseIndex releaseIndex = new ReleaseIndex(releasesList);
 
-        } while (startIndex < totalTickets);
+        // The tickets come in the order of the results, as with a sequential fetch
+        List<Ticket> ticketsList = jiraClient.searchAll(buildJiraSearchPath(), SEARCH_PAGE_SIZE, reader -> readTicket(reader, releaseIndex));
 
         ticketsList.sort(Comparator.comparing(Ticket::getResolutionDate));
 
         if (fix) {
-            return JIRAUtils.addIVandAV(ticketsList, releasesList, this.projectName);
+            // The cold start of the proportion reuses these tickets instead of fetching them again
+            ProportionService.getInstance().addFetchedTickets(this.projectName, ticketsList);
+            return JIRAUtils.addIVandAV(ticketsList, releaseIndex, this.projectName);
         } else {
             return ticketsList;
         }
     }
 
-    private String buildJiraSearchUrl(int startIndex) {
-        return "https://issues.apache.org/jira/rest/api/2/search?jql=project=%22"
+    // The client adds startAt and maxResults
+    private String buildJiraSearchPath() {
+        return "/rest/api/2/search?jql=project=%22"
                 + this.projectName + "%22AND%22issueType%22=%22Bug%22AND" +
                 "(%22status%22=%22Closed%22OR%22status%22=%22Resolved%22)" +
-                "AND%22resolution%22=%22Fixed%22&fields=key,versions,created,resolutiondate&startAt="
-                + startIndex + "&maxResults=" + (startIndex + 1000);
+                "AND%22resolution%22=%22Fixed%22&fields=key,versions,created,resolutiondate";
     }
 
-    private void processIssues(JSONArray issues, List<Ticket> ticketsList, List<Release> releasesList) {
-        for (int i = 0; i < issues.length(); i++) {
-            JSONObject issue = issues.getJSONObject(i);
-            String key = issue.get("key").toString();
-            JSONObject fields = issue.getJSONObject("fields");
+    private static class IssueFields {
+        String created;
+        String resolutionDate;
+        final List<String> affectedVersionNames = new ArrayList<>();
+    }
+
+    // Null if the issue is not a valid ticket
+    private Ticket readTicket(JsonReader reader, ReleaseIndex releaseIndex) throws IOException {
+        String key = null;
+        IssueFields fields = new IssueFields();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String field = reader.nextName();
+            if (field.equals("key")) {
+                key = reader.nextString();
+            } else if (field.equals("fields")) {
+                readIssueFields(reader, fields);
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        LocalDate creationDate = LocalDate.parse(fields.created.substring(0, 10));
+        LocalDate resolutionDate = LocalDate.parse(fields.resolutionDate.substring(0, 10));
 
-            String creationDateString = fields.get("created").toString();
-            String resolutionDateString = fields.get("resolutiondate").toString();
-            LocalDate creationDate = LocalDate.parse(creationDateString.substring(0, 10));
-            LocalDate resolutionDate = LocalDate.parse(resolutionDateString.substring(0, 10));
-            JSONArray affectedVersionsArray = fields.getJSONArray("versions");
+        Release openingVersion = releaseIndex.getReleaseAfterOrEqualDate(creationDate);
+        Release fixedVersion = releaseIndex.getReleaseAfterOrEqualDate(resolutionDate);
+        List<Release> affectedVersionsList = JIRAUtils.returnAffectedVersions(fields.affectedVersionNames, releaseIndex);
 
-            Release openingVersion = JIRAUtils.getReleaseAfterOrEqualDate(creationDate, releasesList);
-            Release fixedVersion = JIRAUtils.getReleaseAfterOrEqualDate(resolutionDate, releasesList);
-            List<Release> affectedVersionsList = JIRAUtils.returnAffectedVersions(affectedVersionsArray, releasesList);
+        if (!isValidTicket(affectedVersionsList, openingVersion, fixedVersion, releaseIndex)) {
+            return null;
+        }
+        return new Ticket(key, creationDate, resolutionDate, affectedVersionsList.isEmpty() ? null : affectedVersionsList.get(0), openingVersion, fixedVersion, affectedVersionsList);
+    }
 
-            if (isValidTicket(affectedVersionsList, openingVersion, fixedVersion, releasesList)) {
-                ticketsList.add(new Ticket(key, creationDate, resolutionDate, affectedVersionsList.isEmpty() ? null : affectedVersionsList.get(0), openingVersion, fixedVersion, affectedVersionsList));
+    private void readIssueFields(JsonReader reader, IssueFields fields) throws IOException {
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String field = reader.nextName();
+            if (field.equals("created")) {
+                fields.created = reader.nextString();
+            } else if (field.equals("resolutiondate")) {
+                fields.resolutionDate = reader.nextString();
+            } else if (field.equals("versions")) {
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    fields.affectedVersionNames.add(readVersionName(reader));
+                }
+                reader.endArray();
+            } else {
+                reader.skipValue();
             }
         }
+        reader.endObject();
+    }
+
+    private String readVersionName(JsonReader reader) throws IOException {
+        String name = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if (reader.nextName().equals("name")) {
+                name = nextStringOrNull(reader);
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return name;
+    }
+
+    private static String nextStringOrNull(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return null;
+        }
+        return reader.nextString();
     }
 
-    private boolean isValidTicket(List<Release> affectedVersionsList, Release openingVersion, Release fixedVersion, List<Release> releasesList) {
+    private boolean isValidTicket(List<Release> affectedVersionsList, Release openingVersion, Release fixedVersion, ReleaseIndex releaseIndex) {
         // The opening version must be after the injected version (first affected versions) and before the fixed version
         if (!affectedVersionsList.isEmpty() && openingVersion != null && fixedVersion != null &&
                 (!affectedVersionsList.get(0).getDate().isBefore(openingVersion.getDate()) || openingVersion.getDate().isAfter(fixedVersion.getDate()))) {
@@ -111,6 +193,6 @@ public class ExtractFromJIRA {
         }
 
         // The opening version must be different from the first release
-        return openingVersion != null && fixedVersion != null && openingVersion.getId() != releasesList.get(0).getId();
+        return openingVersion != null && fixedVersion != null && openingVersion.getId() != releaseIndex.getFirst().getId();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,111 @@
+package controller;
+
+import model.ScannedMethod;
+import org.eclipse.jgit.diff.*;
+
+// Line edits between the old and the new version of a file. The lines outside the edits are equal in
+// both versions, so a method whose lines are untouched and whose old declaration sits at the same
+// (shifted) position has the same text, hence the same body hash, without hashing it
+class FileEdits {
+
+    private static final DiffAlgorithm DIFF_ALGORITHM = DiffAlgorithm.getAlgorithm(DiffAlgorithm.SupportedAlgorithm.HISTOGRAM);
+
+    private final EditList edits;
+    // shifts[i] = (old line - new line) for the lines after the first i edits
+    private final int[] shifts;
+
+    private FileEdits(EditList edits) {
+        this.edits = edits;
+        this.shifts = new int[edits.size() + 1];
+        for (int i = 0; i < edits.size(); i++) {
+            Edit edit = edits.get(i);
+            shifts[i + 1] = shifts[i] + edit.getLengthA() - edit.getLengthB();
+        }
+    }
+
+    // A lone '\r' is a line break for the parser but not for the diff, so it is read as a '\n': the
+    // content keeps its length and the diff lines stay those of the parser positions
+    static FileEdits compute(byte[] oldContent, byte[] newContent) {
+        return new FileEdits(DIFF_ALGORITHM.diff(RawTextComparator.DEFAULT,
+                new RawText(withLoneCarriageReturnsAsLineFeeds(oldContent)), new RawText(withLoneCarriageReturnsAsLineFeeds(newContent))));
+    }
+
+    // The content itself when it has no lone '\r'
+    private static byte[] withLoneCarriageReturnsAsLineFeeds(byte[] content) {
+        byte[] normalized = content;
+        for (int i = 0; i < content.length; i++) {
+            if (content[i] == '\r' && (i + 1 == content.length || content[i + 1] != '\n')) {
+                if (normalized == content) {
+                    normalized = content.clone();
+                }
+                normalized[i] = '\n';
+            }
+        }
+        return normalized;
+    }
+
+    // True if the new declaration is an untouched copy of the old one
+    boolean isUnchanged(ScannedMethod newMethod, ScannedMethod oldMethod) {
+        // Parser lines start from 1, edit lines from 0
+        int first = newMethod.getBeginLine() - 1;
+        int last = newMethod.getEndLine() - 1;
+
+        int next = firstEditEndingAtOrAfter(first);
+        // Edits adjacent to the method count as touching it, which also covers the deletions right before or after it
+        if (next < edits.size() && edits.get(next).getBeginB() <= last + 1) {
+            return false;
+        }
+
+        int shift = shifts[next];
+        return oldMethod.getBeginLine() == newMethod.getBeginLine() + shift && oldMethod.getEndLine() == newMethod.getEndLine() + shift
+                && oldMethod.getBeginColumn() == newMethod.getBeginColumn() && oldMethod.getEndColumn() == newMethod.getEndColumn();
+    }
+
+    // Lines of the new version inside the range that were added or modified
+    int countAddedLines(ScannedMethod newMethod) {
+        int first = newMethod.getBeginLine() - 1;
+        int last = newMethod.getEndLine() - 1;
+
+        int added = 0;
+        for (int i = firstEditEndingAtOrAfter(first); i < edits.size() && edits.get(i).getBeginB() <= last; i++) {
+            added += overlap(edits.get(i).getBeginB(), edits.get(i).getEndB(), first, last);
+        }
+        return added;
+    }
+
+    // Lines of the old version inside the range that were deleted or modified
+    int countDeletedLines(ScannedMethod oldMethod) {
+        int first = oldMethod.getBeginLine() - 1;
+        int last = oldMethod.getEndLine() - 1;
+
+        // Edits are also sorted on the old lines; they are few, so a scan is enough
+        int deleted = 0;
+        for (Edit edit : edits) {
+            if (edit.getBeginA() > last) {
+                break;
+            }
+            deleted += overlap(edit.getBeginA(), edit.getEndA(), first, last);
+        }
+        return deleted;
+    }
+
+    // Lines of [begin, end) inside [first, last]
+    private static int overlap(int begin, int end, int first, int last) {
+        return Math.max(0, Math.min(end, last + 1) - Math.max(begin, first));
+    }
+
+    // Index of the first edit whose new lines end at or after the line (edits are sorted)
+    private int firstEditEndingAtOrAfter(int line) {
+        int low = 0;
+        int high = edits.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (edits.get(mid).getEndB() < line) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,362 @@
+package controller;
+
+import model.*;
+import org.eclipse.jgit.diff.DiffEntry;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import utils.ChurnMode;
+import utils.GitUtils;
+import utils.HistoryCheckpoint;
+import utils.PipelineExecutionException;
+import utils.PipelineSettings;
+import utils.SourcePathFilter;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// Visits once each commit of the history that can change a method: the commits up to the newest release
+// with methods and the fix commits of the tickets injected up to it (only those fix commits when the
+// history metrics are not needed). The diff, the old and new methods and their body hashes are computed
+// a single time per commit, and both the churn/revision metrics and the buggyness labeling (for the fix
+// commits of tickets with an IV) are derived from that visit.
+// The visits (diff, blob loading, method scanning and hashing) are independent and run ahead on a pool of
+// workers; only their application to the methods happens in commit order, on the calling thread
+public class MethodHistoryEngine {
+    private static final Logger LOGGER = Logger.getLogger(MethodHistoryEngine.class.getName());
+
+    // Visited commits waiting to be applied are bounded, so the diffs and blobs of the whole history are never held
+    // in memory; only the changes recorded in the checkpoint, when there is one, are kept until the end of the pass
+    private static final int COMMITS_IN_FLIGHT_PER_THREAD = 4;
+    private static final byte[] NO_CONTENT = new byte[0];
+
+    private final Repository repository;
+    private final HistoryCheckpoint checkpoint; // null when the pass is not incremental
+    private final CommitTable commitTable;
+    private final SourcePathFilter sourcePathFilter;
+    private final ChurnMode churnMode;
+    private final ReleaseTimeline releaseTimeline;
+    private final List<JavaMethod> allMethods;
+    private final MethodIndex methodIndex;
+    private final Map<Integer, List<Ticket>> ticketsByFixCommit;
+    private final Release lastMethodRelease; // Newest release with methods, null if there are none
+    // Without the history metrics only the fix commits are visited, to label the buggy methods
+    private final boolean historyMetrics;
+    // Unbounded, every commit of the table is visited: same result, only used to check the bound
+    private boolean boundedToAffectingCommits = true;
+
+    public MethodHistoryEngine(Repository repository, HistoryCheckpoint checkpoint, CommitTable commitTable, SourcePathFilter sourcePathFilter,
+                               ReleaseTimeline releaseTimeline, List<JavaMethod> allMethods, List<Ticket> ticketList, boolean historyMetrics) {
+        this.repository = repository;
+        this.checkpoint = checkpoint;
+        this.commitTable = commitTable;
+        this.sourcePathFilter = sourcePathFilter;
+        this.churnMode = PipelineSettings.getChurnMode();
+        this.releaseTimeline = releaseTimeline;
+        this.allMethods = allMethods;
+        this.methodIndex = new MethodIndex(allMethods);
+        this.ticketsByFixCommit = new HashMap<>();
+        this.historyMetrics = historyMetrics;
+
+        for (Ticket ticket : ticketList) {
+            if (ticket.getIv() != null) {
+                CommitSet fixCommits = ticket.getCommits();
+                for (int k = 0; k < fixCommits.size(); k++) {
+                    ticketsByFixCommit.computeIfAbsent(fixCommits.get(k), c -> new ArrayList<>()).add(ticket);
+                }
+            }
+        }
+
+        this.lastMethodRelease = allMethods.stream()
+                .map(JavaMethod::getRelease)
+                .max(Comparator.comparing(Release::getDate).thenComparingInt(Release::getId))
+                .orElse(null);
+    }
+
+    private static class PendingCommit {
+        final int commit;
+        final List<MethodChange> checkpointedChanges;
+        final Future<List<MethodChange>> visit;
+
+        PendingCommit(int commit, List<MethodChange> checkpointedChanges, Future<List<MethodChange>> visit) {
+            this.commit = commit;
+            this.checkpointedChanges = checkpointedChanges;
+            this.visit = visit;
+        }
+    }
+
+    void setBoundedToAffectingCommits(boolean bounded) {
+        this.boundedToAffectingCommits = bounded;
+    }
+
+    // Processes the commits of the table that can change a method, in commit time order
+    public void process() throws IOException, PipelineExecutionException {
+        allMethods.forEach(method -> method.setBuggy(false));
+
+        int[] commits = selectCommitsAffectingMethods();
+        LOGGER.log(Level.INFO, "History pass bounded to {0} of {1} commits.", new Object[]{commits.length, commitTable.size()});
+
+        int numThreads = PipelineSettings.getWorkerThreads();
+        int maxCommitsInFlight = numThreads * COMMITS_IN_FLIGHT_PER_THREAD;
+        ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+
+        int visitedCommits = 0;
+        try {
+            Deque<PendingCommit> window = new ArrayDeque<>(maxCommitsInFlight);
+            for (int commit : commits) {
+                ObjectId commitId = commitTable.getId(commit);
+                List<MethodChange> changes = checkpoint == null ? null : checkpoint.get(commitId);
+                if (changes != null) {
+                    window.add(new PendingCommit(commit, changes, null));
+                } else {
+                    window.add(new PendingCommit(commit, null, executor.submit(() -> visitCommit(commitId))));
+                }
+
+                // Wait for the oldest commit before visiting more
+                if (window.size() >= maxCommitsInFlight) {
+                    visitedCommits += applyPendingCommit(window.poll());
+                }
+            }
+            while (!window.isEmpty()) {
+                visitedCommits += applyPendingCommit(window.poll());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        LOGGER.log(Level.INFO, "History pass: {0} new commits processed, the others replayed from the checkpoint.", visitedCommits);
+        if (recordsCheckpoint()) {
+            checkpoint.save();
+        }
+
+        // Calculate number of authors after all the commits are processed
+        if (historyMetrics) {
+            updateNumAuthorsForMethods();
+        }
+    }
+
+    // A commit updates the methods of its release and of the following ones, so the commits after the
+    // newest release with methods only matter as fix commits of tickets injected up to that release.
+    // Commits outside every release change nothing. Without the history metrics only those fix commits matter
+    int[] selectCommitsAffectingMethods() {
+        if (!boundedToAffectingCommits) {
+            int[] all = new int[commitTable.size()];
+            Arrays.setAll(all, commit -> commit);
+            return all;
+        }
+        if (lastMethodRelease == null) {
+            return new int[0];
+        }
+
+        int[] selected = new int[commitTable.size()];
+        int count = 0;
+        for (int commit = 0; commit < commitTable.size(); commit++) {
+            Release releaseOfCommit = releaseTimeline.getReleaseOfDay(commitTable.getCommitDay(commit));
+            if (releaseOfCommit == null) {
+                continue;
+            }
+            boolean updatesMetrics = historyMetrics && !releaseOfCommit.getDate().isAfter(lastMethodRelease.getDate());
+            if (updatesMetrics || labelsMethods(commit)) {
+                selected[count++] = commit;
+            }
+        }
+        return Arrays.copyOf(selected, count);
+    }
+
+    private boolean labelsMethods(int commit) {
+        for (Ticket ticket : ticketsByFixCommit.getOrDefault(commit, Collections.emptyList())) {
+            if (ticket.getIv().getId() <= lastMethodRelease.getId()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // The fix-commits-only pass just reads the checkpoint: saving it would drop every other commit of the history
+    private boolean recordsCheckpoint() {
+        return checkpoint != null && historyMetrics;
+    }
+
+    // Returns the number of commits that were visited instead of replayed from the checkpoint
+    private int applyPendingCommit(PendingCommit pending) throws PipelineExecutionException {
+        if (pending.checkpointedChanges != null) {
+            applyCommit(pending.commit, pending.checkpointedChanges);
+            return 0;
+        }
+
+        List<MethodChange> changes = awaitVisit(pending.visit);
+        if (changes == null) {
+            return 0; // Root commit
+        }
+        if (recordsCheckpoint()) {
+            checkpoint.put(commitTable.getId(pending.commit), changes);
+        }
+        applyCommit(pending.commit, changes);
+        return 1;
+    }
+
+    private List<MethodChange> awaitVisit(Future<List<MethodChange>> visit) throws PipelineExecutionException {
+        try {
+            return visit.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PipelineExecutionException("Interrupted while visiting the commit history", e);
+        } catch (ExecutionException e) {
+            throw new PipelineExecutionException("Failed to visit a commit of the history", e.getCause());
+        }
+    }
+
+    // Runs on a worker thread, so it has its own RevWalk. Returns null for a root commit
+    private List<MethodChange> visitCommit(ObjectId commitId) throws IOException {
+        try (RevWalk revWalk = new RevWalk(repository)) {
+            // Only the headers are needed to diff a commit against its parent
+            revWalk.setRetainBody(false);
+
+            RevCommit commit = revWalk.parseCommit(commitId);
+            if (commit.getParentCount() == 0) {
+                return null;
+            }
+            RevCommit parent = revWalk.parseCommit(commit.getParent(0));
+            List<DiffEntry> diffs = GitUtils.getDiffEntries(parent, commit, sourcePathFilter, repository);
+            // A deleted file changes no method of the following releases: its blob is not needed
+            diffs.removeIf(diff -> diff.getChangeType() == DiffEntry.ChangeType.DELETE);
+
+            Map<String, byte[]> oldFileContents = GitUtils.getFileContents(parent, diffs, true, repository);
+            Map<String, byte[]> newFileContents = GitUtils.getFileContents(commit, diffs, false, repository);
+
+            List<MethodChange> changes = new ArrayList<>();
+            for (DiffEntry diff : diffs) {
+                visitDiffEntry(diff, oldFileContents, newFileContents, changes);
+            }
+            return changes;
+        }
+    }
+
+    private void visitDiffEntry(DiffEntry diff, Map<String, byte[]> oldFileContents, Map<String, byte[]> newFileContents,
+                                List<MethodChange> changes) {
+        String filePath = diff.getNewPath();
+
+        byte[] oldContent = oldFileContents.getOrDefault(diff.getOldPath(), NO_CONTENT);
+        byte[] newContent = newFileContents.getOrDefault(diff.getNewPath(), NO_CONTENT);
+
+        String oldText = new String(oldContent);
+        String newText = new String(newContent);
+        Map<String, ScannedMethod> oldMethods = GitUtils.scanMethods(oldText);
+        Map<String, ScannedMethod> newMethods = GitUtils.scanMethods(newText);
+
+        // Only the methods touched by the edits of the diff are compared; without old methods (new file or
+        // parse failure) every method is compared as before. The edits churn also counts the added lines of
+        // the methods of a new file from the edits, so in that mode they are computed whenever there are new methods
+        boolean needsEdits = churnMode == ChurnMode.EDITS ? !newMethods.isEmpty() : !oldMethods.isEmpty();
+        FileEdits fileEdits = needsEdits ? FileEdits.compute(oldContent, newContent) : null;
+        addChangedMethods(filePath, oldMethods, newMethods, fileEdits, changes);
+    }
+
+    // A method the edits leave untouched is skipped on its position alone: its body is never measured
+    void addChangedMethods(String filePath, Map<String, ScannedMethod> oldMethods, Map<String, ScannedMethod> newMethods,
+                           FileEdits fileEdits, List<MethodChange> changes) {
+        for (Map.Entry<String, ScannedMethod> newMethodEntry : newMethods.entrySet()) {
+            String signature = newMethodEntry.getKey();
+            ScannedMethod newMethod = newMethodEntry.getValue();
+            ScannedMethod oldMethod = oldMethods.get(signature);
+
+            if (fileEdits != null && oldMethod != null && fileEdits.isUnchanged(newMethod, oldMethod)) {
+                continue;
+            }
+            if (oldMethod == null || oldMethod.getBodyFingerprint() != newMethod.getBodyFingerprint()) {
+                changes.add(createMethodChange(filePath + "/" + signature, oldMethod, newMethod, fileEdits));
+            }
+        }
+    }
+
+    private MethodChange createMethodChange(String fqn, ScannedMethod oldMethod, ScannedMethod newMethod, FileEdits fileEdits) {
+        if (churnMode == ChurnMode.EDITS && fileEdits != null) {
+            int deletedLines = oldMethod != null ? fileEdits.countDeletedLines(oldMethod) : 0;
+            return new MethodChange(fqn, fileEdits.countAddedLines(newMethod), deletedLines);
+        }
+
+        int addedInThisCommit;
+        int deletedInThisCommit = 0;
+
+        int locNewInCommit = newMethod.getLoc();
+
+        if (oldMethod != null) {
+            int locOldInParentCommit = oldMethod.getLoc();
+            addedInThisCommit = Math.max(0, locNewInCommit - locOldInParentCommit);
+            deletedInThisCommit = Math.max(0, locOldInParentCommit - locNewInCommit);
+        } else {
+            addedInThisCommit = locNewInCommit;
+        }
+
+        return new MethodChange(fqn, addedInThisCommit, deletedInThisCommit);
+    }
+
+    private void applyCommit(int commit, List<MethodChange> changes) {
+        if (changes.isEmpty()) {
+            return;
+        }
+
+        Release releaseOfCommit = releaseTimeline.getReleaseOfDay(commitTable.getCommitDay(commit));
+        if (releaseOfCommit == null) {
+            return;
+        }
+
+        if (historyMetrics) {
+            for (MethodChange change : changes) {
+                // Methods of the release of the commit and of all the following ones
+                for (JavaMethod projectMethod : methodIndex.getVersionsOnOrAfter(change.getFullyQualifiedName(), releaseOfCommit.getDate())) {
+                    applyMetricsUpdateToMethod(projectMethod, commit, change);
+                }
+            }
+        }
+
+        // The release of a fix commit is the fixed version of its tickets
+        for (Ticket ticket : ticketsByFixCommit.getOrDefault(commit, Collections.emptyList())) {
+            for (MethodChange change : changes) {
+                labelBuggyMethods(change.getFullyQualifiedName(), ticket.getIv(), releaseOfCommit, commit);
+            }
+        }
+    }
+
+    private void applyMetricsUpdateToMethod(JavaMethod projectMethod, int commit, MethodChange change) {
+        projectMethod.addCommit(commit);
+        projectMethod.incrementNumRevisions();
+
+        projectMethod.addStmtAdded(change.getStmtAdded());
+        projectMethod.addStmtDeleted(change.getStmtDeleted());
+        projectMethod.updateMaxChurn(change.getChurn());
+    }
+
+    private void labelBuggyMethods(String fixedMethodFQN, Release injectedVersion, Release fixedVersion, int fixCommit) {
+        // Add the fix commit if the method belongs to the FV and the commit has touched it
+        JavaMethod fixedMethod = methodIndex.getVersion(fixedMethodFQN, fixedVersion.getId());
+        if (fixedMethod != null && fixedMethod.getCommits().contains(fixCommit)) {
+            fixedMethod.addFixCommit(fixCommit);
+        }
+        // Label as buggy if the method's release is between IV (included) and FV (excluded)
+        for (JavaMethod projectMethod : methodIndex.getVersionsInRange(fixedMethodFQN, injectedVersion.getId(), fixedVersion.getId())) {
+            projectMethod.setBuggy(true);
+        }
+    }
+
+    private void updateNumAuthorsForMethods() {
+        BitSet authors = new BitSet(commitTable.getNumNames());
+        for (JavaMethod method : allMethods) {
+            CommitSet commits = method.getCommits();
+            for (int k = 0; k < commits.size(); k++) {
+                int authorId = commitTable.getAuthorId(commits.get(k));
+                if (authorId >= 0) {
+                    authors.set(authorId);
+                }
+            }
+            method.setNumAuthors(authors.cardinality());
+            authors.clear();
+        }
+    }
+}
@@ -1,13 +1,11 @@
 package controller;
 
+import com.github.javaparser.JavaToken;
+import com.github.javaparser.Range;
+import com.github.javaparser.TokenRange;
 import com.github.javaparser.ast.body.MethodDeclaration;
-import com.github.javaparser.ast.expr.MethodCallExpr;
-import com.github.javaparser.ast.expr.NullLiteralExpr;
-import com.github.javaparser.ast.stmt.*;
+import com.github.javaparser.ast.stmt.BlockStmt;
 import model.*;
-import com.github.javaparser.ast.body.VariableDeclarator;
-import com.github.javaparser.ast.expr.IntegerLiteralExpr;
-import org.eclipse.jgit.revwalk.RevCommit;
 
 import java.util.*;
 
@@ -20,73 +18,69 @@ public class MetricCalculator {
         if (!md.getBody().isPresent()) {
             return 0;
         }
-        String body = md.getBody().get().toString();
-        if (body.startsWith("/*") && body.contains("*/")) {
-            body = body.substring(body.indexOf("*/") + 2);
+        return calculateLOC(md.getBody().get());
+    }
+
+    // Lines of the original source holding a token of the body other than comments and braces, read
+    // from the token range of the parser: the body is neither printed nor split into strings
+    public static int calculateLOC(BlockStmt methodBody) {
+        Optional<TokenRange> tokenRange = methodBody.getTokenRange();
+        if (tokenRange.isEmpty()) {
+            return 0;
         }
 
-        String[] lines = body.split("\r\n|\r|\n");
-        long count = Arrays.stream(lines)
-                .map(String::trim)
-                .filter(line -> !line.isEmpty() &&
-                        !line.startsWith("//") &&
-                        !(line.startsWith("/*") && line.endsWith("*/")) &&
-                        !line.equals("{") && !line.equals("}")
-                ).count();
-
-        if (count == 0 && lines.length > 2) {
-            boolean allCommentsOrEmpty = true;
-            for(String line : lines){
-                String trimmedLine = line.trim();
-                if(!trimmedLine.isEmpty() && !trimmedLine.startsWith("//") && !trimmedLine.startsWith("/*") && !trimmedLine.endsWith("*/") && !trimmedLine.equals("{") && !trimmedLine.equals("}")){
-                    allCommentsOrEmpty = false;
-                    break;
-                }
+        int loc = 0;
+        int lastCountedLine = 0;
+        for (JavaToken token : tokenRange.get()) {
+            if (token.getCategory().isWhitespaceOrComment() || token.getKind() == JavaToken.Kind.LBRACE.getKind()
+                    || token.getKind() == JavaToken.Kind.RBRACE.getKind() || token.getRange().isEmpty()) {
+                continue;
+            }
+            Range range = token.getRange().get();
+            if (range.end.line > lastCountedLine) {
+                loc += range.end.line - Math.max(range.begin.line, lastCountedLine + 1) + 1;
+                lastCountedLine = range.end.line;
             }
-            if(allCommentsOrEmpty) return 0;
         }
-
-        return (int) count;
+        return loc;
     }
 
-    public static int calculateNumberOfBranches(MethodDeclaration md) {
-        if (!md.getBody().isPresent()) {
-            return 0;
-        }
-        BranchDecisionCounterVisitor visitor = new BranchDecisionCounterVisitor();
-        md.getBody().get().accept(visitor, null);
-        return visitor.getCount();
+    public static MethodMetrics calculateMetrics(MethodDeclaration md) {
+        return calculateMetrics(md.getBody().orElse(null), md.getParameters().size());
     }
 
-    public static int calculateNestingDepth(MethodDeclaration md) {
-        if (!md.getBody().isPresent()) {
-            return 0;
+    // All the metrics of a body from one walk of its AST (plus the LOC); a method without a body only has its parameters
+    public static MethodMetrics calculateMetrics(BlockStmt body, int numParameters) {
+        if (body == null) {
+            return new MethodMetrics(0, numParameters, 0, 0, 0);
         }
-        NestingDepthVisitor visitor = new NestingDepthVisitor();
-        md.getBody().get().accept(visitor, null);
-        return visitor.getMaxDepth();
+        MethodMetricsVisitor visitor = new MethodMetricsVisitor();
+        body.accept(visitor, null);
+
+        int loc = calculateLOC(body);
+        int branches = visitor.getBranchCount();
+        int nestingDepth = visitor.getMaxDepth();
+        return new MethodMetrics(loc, numParameters, branches, nestingDepth,
+                calculateCodeSmells(visitor, branches, loc, nestingDepth, numParameters));
     }
 
-    public static void calculateNFix(List<JavaMethod> allMethods, List<Ticket> ticketList, List<Release> releaseList) {
-        // 1. Crea una mappa dei commit che sono "fix"
-        //    Questo lo stai già facendo implicitamente, ma rendiamolo esplicito.
-        Set<String> fixCommitNames = new HashSet<>();
+    public static void calculateNFix(List<JavaMethod> allMethods, List<Ticket> ticketList, CommitTable commitTable, List<Release> releaseList) {
+        // 1. Crea l'insieme dei commit che sono "fix": quelli dei ticket arrivati fin qui
+        BitSet fixCommits = new BitSet(commitTable.size());
         for (Ticket ticket : ticketList) {
-            // Assicurati di considerare solo i ticket che sono bug risolti.
-            // La tua query JIRA dovrebbe già farlo.
-            for (RevCommit commit : ticket.getCommitList()) {
-                fixCommitNames.add(commit.getName());
+            CommitSet ticketCommits = ticket.getCommits();
+            for (int k = 0; k < ticketCommits.size(); k++) {
+                fixCommits.set(ticketCommits.get(k));
             }
         }
 
         // 2. Trova la data dell'ultimo commit per ogni release
         //    Questa informazione ci serve per sapere qual è il "momento dello snapshot".
-        Map<Integer, Date> releaseSnapshotDate = new HashMap<>();
+        Map<Integer, Integer> releaseSnapshotTime = new HashMap<>();
         for (Release release : releaseList) { // Usa la lista delle release in analisi
-            if (!release.getCommitList().isEmpty()) {
-                release.getCommitList().sort(Comparator.comparing(RevCommit::getCommitTime));
-                Date lastCommitDate = release.getCommitList().get(release.getCommitList().size() - 1).getCommitterIdent().getWhen();
-                releaseSnapshotDate.put(release.getId(), lastCommitDate);
+            if (!release.getCommits().isEmpty()) {
+                // I commit della release sono già in ordine di tempo
+                releaseSnapshotTime.put(release.getId(), commitTable.getCommitTime(release.getCommits().last()));
             }
         }
 
@@ -95,17 +89,18 @@ public class MetricCalculator {
             int nFixCount = 0;
 
             // Prendi la data dello snapshot della release del metodo
-            Date snapshotDate = releaseSnapshotDate.get(method.getRelease().getId());
-            if (snapshotDate == null) continue; // Salta se non abbiamo una data di snapshot
+            Integer snapshotTime = releaseSnapshotTime.get(method.getRelease().getId());
+            if (snapshotTime == null) continue; // Salta se non abbiamo una data di snapshot
 
             // Itera su tutti i commit che hanno toccato questo metodo
-            for (RevCommit commit : method.getCommits()) {
+            CommitSet commits = method.getCommits();
+            for (int k = 0; k < commits.size(); k++) {
+                int commit = commits.get(k);
 
                 // Un commit conta come "fix precedente" se:
-                // 1. È un commit di fix (è nel nostro set).
+                // 1. È un commit di fix (è nel nostro insieme).
                 // 2. La sua data è ANTECEDENTE alla data dello snapshot del metodo.
-                if (fixCommitNames.contains(commit.getName()) &&
-                        commit.getCommitterIdent().getWhen().before(snapshotDate)) {
+                if (fixCommits.get(commit) && commitTable.getCommitTime(commit) < snapshotTime) {
 
                     nFixCount++;
                 }
@@ -114,12 +109,7 @@ public class MetricCalculator {
         }
     }
 
-    public static int calculateCodeSmells(MethodDeclaration md, int cyclomaticComplexity, int loc, int nestingDepth, int numParameters) {
-        Optional<BlockStmt> bodyOpt = md.getBody();
-        if (bodyOpt.isEmpty()) {
-            return 0;
-        }
-        BlockStmt body = bodyOpt.get();
+    private static int calculateCodeSmells(MethodMetricsVisitor visitor, int cyclomaticComplexity, int loc, int nestingDepth, int numParameters) {
         int smellCount = 0;
 
         // 1. Long Method
@@ -132,68 +122,16 @@ public class MetricCalculator {
         if (numParameters > 4) smellCount++;
 
         // 5. Magic Number
-        if (countMagicNumbers(body) > 1) smellCount++;
+        if (visitor.getMagicNumberCount() > 1) smellCount++;
         // 6. Missing Default In Switch
-        if (hasMissingDefaultInSwitch(body)) smellCount++;
+        if (visitor.hasMissingDefaultInSwitch()) smellCount++;
         // 7. Empty Catch Block
-        if (hasEmptyCatchBlock(body)) smellCount++;
+        if (visitor.hasEmptyCatchBlock()) smellCount++;
         // 8. Returning Null
-        if (isReturningNull(body)) smellCount++;
+        if (visitor.isReturningNull()) smellCount++;
         // 9. Message Chain
-        if (hasMessageChain(body)) smellCount++;
+        if (visitor.hasMessageChain()) smellCount++;
 
         return smellCount;
     }
-
-    // --- Helper methods for code smells calculation ---
-
-    private static long countMagicNumbers(BlockStmt body) {
-        return body.findAll(IntegerLiteralExpr.class).stream()
-                .filter(n -> {
-                    try {
-                        int val = n.asInt();
-                        return val != 0 && val != 1 && val != -1;
-                    } catch (Exception e) { return false; }
-                })
-                .filter(n -> n.getParentNode().map(p -> !(p instanceof VariableDeclarator)).orElse(true))
-                .count();
-    }
-
-    private static boolean hasMissingDefaultInSwitch(BlockStmt body) {
-        for (SwitchStmt switchStmt : body.findAll(SwitchStmt.class)) {
-            if (switchStmt.getEntries().stream().noneMatch(entry -> entry.getLabels().isEmpty())) {
-                return true; // Trovato uno switch senza default
-            }
-        }
-        return false;
-    }
-
-    private static boolean hasEmptyCatchBlock(BlockStmt body) {
-        for (CatchClause catchClause : body.findAll(CatchClause.class)) {
-            if (catchClause.getBody().getStatements().isEmpty() && catchClause.getBody().getComment().isEmpty()) {
-                return true;
-            }
-        }
-        return false;
-    }
-
-    private static boolean isReturningNull(BlockStmt body) {
-        return body.findAll(ReturnStmt.class).stream()
-                .anyMatch(r -> r.getExpression().isPresent() && r.getExpression().get() instanceof NullLiteralExpr);
-    }
-
-    private static boolean hasMessageChain(BlockStmt body) {
-        for (MethodCallExpr call : body.findAll(MethodCallExpr.class)) {
-            int chainLength = 0;
-            Optional<com.github.javaparser.ast.expr.Expression> scope = call.getScope();
-            while (scope.isPresent() && scope.get() instanceof MethodCallExpr) {
-                chainLength++;
-                scope = ((MethodCallExpr) scope.get()).getScope();
-            }
-            if (chainLength >= 3) {
-                return true; // Trovata almeno una catena lunga
-            }
-        }
-        return false;
-    }
-}
\ No newline at end of file
+}
@@ -1,11 +1,14 @@
 package controller;
 
+import model.CommitSet;
+import model.CommitTable;
+import model.DatasetMetric;
 import model.JavaMethod;
 import model.Release;
 import model.Ticket;
 import model.WekaClassifier;
-import org.eclipse.jgit.revwalk.RevCommit;
 import utils.PipelineExecutionException;
+import utils.PipelineSettings;
 import utils.PrintUtils;
 import utils.ProjectConfig;
 import weka.core.Instances;
@@ -32,6 +35,7 @@ public class PipelineController {
      */
     public void executeDataExtraction() throws PipelineExecutionException {
         try {
+            PipelineSettings.validate();
             LOGGER.log(Level.INFO, "\n[PHASE 1] Extracting data from JIRA and Git...");
             ExtractFromJIRA jiraExtractor = new ExtractFromJIRA(project);
             List<Release> fullReleaseList = jiraExtractor.getReleaseList();
@@ -42,27 +46,31 @@ public class PipelineController {
             LOGGER.log(Level.INFO, "{0}: ticket extracted.", project);
 
             ExtractFromGit gitExtractor = new ExtractFromGit(project, fullReleaseList, ticketList);
-            List<RevCommit> commitList = gitExtractor.getAllCommitsAndAssignToReleases();
+            CommitTable commitTable = gitExtractor.getAllCommitsAndAssignToReleases();
             fullReleaseList = gitExtractor.getFullReleaseList();
             List<Release> releaseList = gitExtractor.getReleaseList(); // first 34% of fullReleaseList
-            PrintUtils.printCommits(project, commitList, "AllCommits.csv");
+            PrintUtils.printCommits(project, commitTable, "AllCommits.csv");
             LOGGER.log(Level.INFO, "{0}: commits extracted and added to release list.", project);
 
-            List<RevCommit> filteredCommitList = gitExtractor.filterCommitsAndSetToTicket();
-            PrintUtils.printCommits(project, filteredCommitList, "FilteredCommits.csv");
+            CommitSet filteredCommits = gitExtractor.filterCommitsAndSetToTicket();
+            PrintUtils.printCommits(project, commitTable, filteredCommits, "FilteredCommits.csv");
             PrintUtils.printReleases(project, fullReleaseList, "AllReleases.csv");
             PrintUtils.printReleases(project, releaseList, "AnalysisReleases.csv");
             LOGGER.log(Level.INFO, "{0}: commits filtered.", project);
 
-            List<JavaMethod> methodList = gitExtractor.getMethodsFromReleases();
-            PrintUtils.printMethods(project, methodList);
-            LOGGER.log(Level.INFO, "{0}: methods extracted.", project);
-
-            gitExtractor.setMethodBuggyness(methodList);
-            LOGGER.log(Level.INFO, "{0}: method buggyness added.", project);
+            List<DatasetMetric> metrics = PipelineSettings.getDatasetMetrics();
+            List<JavaMethod> methodList = gitExtractor.getMethodsFromReleases(metrics);
+            if (DatasetMetric.requiredCost(metrics) == DatasetMetric.Cost.AST) {
+                // Without the history pass the methods only know their fix commits
+                PrintUtils.deleteMethods(project);
+                LOGGER.log(Level.INFO, "{0}: static metrics only, Methods.csv not written and any earlier one removed.", project);
+            } else {
+                PrintUtils.printMethods(project, commitTable, methodList);
+            }
+            LOGGER.log(Level.INFO, "{0}: methods extracted and buggyness added.", project);
 
             String fullDatasetPath = "reportFiles/" + project.toLowerCase() + "/Dataset.csv";
-            PrintUtils.createDataset(fullDatasetPath, methodList);
+            PrintUtils.createDataset(fullDatasetPath, methodList, metrics);
             LOGGER.log(Level.INFO, "{0}: dataset created.", project);
 
             LOGGER.log(Level.INFO, "[PHASE 1] Data extraction complete.\n");
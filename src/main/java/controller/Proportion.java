@@ -1,43 +1,37 @@
 package controller;
 
 import model.Release;
+import model.ReleaseIndex;
 import model.Ticket;
-import utils.JIRAUtils;
 
 import java.io.IOException;
 import java.net.URISyntaxException;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
 
 import static java.lang.Math.max;
 
 public class Proportion {
 
-    private final List<Float> proportionList;
-
-    private float totalProportion;
-
-    private final int thresholdColdStart;
+    private final ProportionEstimator estimator;
 
     private final String projectName;
 
-    private static final Map<String, Float> cachedColdStartProportions = new HashMap<>();
-
+    // Below this many proportions the cold start is used; it is also the valid tickets a project needs to give one
+    static final int THRESHOLD_COLD_START = 5;
 
     public Proportion(String projectName) {
-        this.proportionList = new ArrayList<>();
-        this.totalProportion = 0;
-        this.thresholdColdStart = 5;
+        this(projectName, ProportionEstimator.fromSettings());
+    }
+
+    public Proportion(String projectName, ProportionEstimator estimator) {
+        this.estimator = estimator;
         this.projectName = projectName;
     }
 
-    public void fixTicketWithProportion(Ticket ticket, List<Release> releaseList) throws IOException, URISyntaxException {
+    public void fixTicketWithProportion(Ticket ticket, ReleaseIndex releaseIndex) throws IOException, URISyntaxException {
         int estimatedIV;
         float proportion;
 
-        if (proportionList.size() < this.thresholdColdStart) {
+        if (estimator.size() < THRESHOLD_COLD_START) {
             proportion = coldStart();
         } else {
             proportion = increment();
@@ -45,11 +39,10 @@ public class Proportion {
 
         estimatedIV = obtainIV(proportion, ticket);
 
-        for (Release release : releaseList) {
-            if (estimatedIV == release.getId()) {
-                ticket.setIv(release);
-                ticket.addAv(release);
-            }
+        Release release = releaseIndex.getById(estimatedIV);
+        if (release != null) {
+            ticket.setIv(release);
+            ticket.addAv(release);
         }
 
         if (ticket.getIv() != null && ticket.getOv() != null && ticket.getFv() != null) {
@@ -58,45 +51,15 @@ public class Proportion {
 
     }
 
-    private float increment() {
-        if (this.proportionList.isEmpty()) {
-            return 0.0f;
-        }
-        return this.totalProportion / this.proportionList.size();
+    float increment() {
+        return estimator.estimate();
     }
 
-    private float coldStart() throws IOException, URISyntaxException {
-        if (cachedColdStartProportions.containsKey(this.projectName)) {
-            return cachedColdStartProportions.get(this.projectName);
-        }
-
-        ExtractFromJIRA jiraExtractor = new ExtractFromJIRA(this.projectName.toUpperCase());
-        List<Release> releaseList = jiraExtractor.getReleaseList();
-        List<Ticket> ticketList = jiraExtractor.getTicketList(releaseList, false);
-
-        List<Ticket> consistentTickets = JIRAUtils.returnValidTickets(ticketList);
-
-        if (consistentTickets.size() < this.thresholdColdStart) {
-            throw new IllegalStateException(
-                    "Impossibile calcolare la proporzione di cold-start per il progetto '" + this.projectName +
-                            "'. Richiesti almeno " + this.thresholdColdStart + " ticket storici validi, ma trovati " +
-                            consistentTickets.size() + "."
-            );
-        }
-
-
-        Proportion tempProportionCalculator = new Proportion(this.projectName);
-        for (Ticket t : consistentTickets) {
-            tempProportionCalculator.addProportion(t);
-        }
-        float avgProportion = tempProportionCalculator.increment();
-
-        cachedColdStartProportions.put(this.projectName, avgProportion);
-
-        return avgProportion;
+    private float coldStart() throws IOException {
+        return ProportionService.getInstance().getColdStartProportion(this.projectName);
     }
 
-    private int obtainIV(float proportion, Ticket ticket) {
+    static int obtainIV(float proportion, Ticket ticket) {
         int ov = ticket.getOv().getId();
         int fv = ticket.getFv().getId();
         int estimatedIV;
@@ -111,8 +74,11 @@ public class Proportion {
     }
 
     public void addProportion(Ticket ticket) {
+        estimator.add(proportionOf(ticket));
+    }
+
+    static float proportionOf(Ticket ticket) {
         int denominator;
-        float proportion;
         int ov = ticket.getOv().getId();
         int fv = ticket.getFv().getId();
 
@@ -122,10 +88,6 @@ public class Proportion {
             denominator = fv - ov;
         }
 
-        proportion = (float) (fv - ticket.getIv().getId()) / denominator;
-
-        this.proportionList.add(proportion);
-        this.totalProportion += proportion;
-
+        return (float) (fv - ticket.getIv().getId()) / denominator;
     }
-}
\ No newline at end of file
+}
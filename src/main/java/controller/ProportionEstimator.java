@@ -0,0 +1,128 @@
+package controller;
+
+import utils.PipelineSettings;
+import utils.ProportionMethod;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.PriorityQueue;
+
+// Estimate of the proportion of the next ticket, updated one ticket at a time
+public interface ProportionEstimator {
+
+    void add(float proportion);
+
+    // 0 when no proportion was added
+    float estimate();
+
+    // Proportions added so far
+    int size();
+
+    static ProportionEstimator create(ProportionMethod method, int window) {
+        switch (method) {
+            case WINDOW:
+                return new WindowMean(window);
+            case MEDIAN:
+                return new StreamingMedian();
+            default:
+                return new RunningMean();
+        }
+    }
+
+    static ProportionEstimator fromSettings() {
+        return create(PipelineSettings.getProportionMethod(), PipelineSettings.getProportionWindow());
+    }
+
+    // O(1) per update; the total is a float, as the proportions are
+    class RunningMean implements ProportionEstimator {
+        private float total;
+        private int count;
+
+        @Override
+        public void add(float proportion) {
+            total += proportion;
+            count++;
+        }
+
+        @Override
+        public float estimate() {
+            return count == 0 ? 0.0f : total / count;
+        }
+
+        @Override
+        public int size() {
+            return count;
+        }
+    }
+
+    // O(1) per update: the proportion leaving the window is subtracted from the total
+    class WindowMean implements ProportionEstimator {
+        private final int window;
+        private final Deque<Float> lastProportions = new ArrayDeque<>();
+        private double windowTotal;
+        private int count;
+
+        public WindowMean(int window) {
+            this.window = window;
+        }
+
+        @Override
+        public void add(float proportion) {
+            lastProportions.addLast(proportion);
+            windowTotal += proportion;
+            if (lastProportions.size() > window) {
+                windowTotal -= lastProportions.removeFirst();
+            }
+            count++;
+        }
+
+        @Override
+        public float estimate() {
+            return lastProportions.isEmpty() ? 0.0f : (float) (windowTotal / lastProportions.size());
+        }
+
+        @Override
+        public int size() {
+            return count;
+        }
+    }
+
+    // O(log n) per update: the lower half in a max-heap, the upper half in a min-heap, the lower one
+    // holding the extra element when the count is odd. Same result as JIRAUtils.median
+    class StreamingMedian implements ProportionEstimator {
+        private final PriorityQueue<Float> lowerHalf = new PriorityQueue<>(Collections.reverseOrder());
+        private final PriorityQueue<Float> upperHalf = new PriorityQueue<>();
+
+        @Override
+        public void add(float proportion) {
+            if (lowerHalf.isEmpty() || proportion <= lowerHalf.peek()) {
+                lowerHalf.add(proportion);
+            } else {
+                upperHalf.add(proportion);
+            }
+
+            if (lowerHalf.size() > upperHalf.size() + 1) {
+                upperHalf.add(lowerHalf.poll());
+            } else if (upperHalf.size() > lowerHalf.size()) {
+                lowerHalf.add(upperHalf.poll());
+            }
+        }
+
+        @Override
+        public float estimate() {
+            if (lowerHalf.isEmpty()) {
+                return 0.0f;
+            }
+            if (lowerHalf.size() == upperHalf.size()) {
+                return (lowerHalf.peek() + upperHalf.peek()) / 2;
+            }
+            return lowerHalf.peek();
+        }
+
+        @Override
+        public int size() {
+            return lowerHalf.size() + upperHalf.size();
+        }
+    }
+}
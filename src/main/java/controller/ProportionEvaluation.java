@@ -0,0 +1,76 @@
+package controller;
+
+import model.Ticket;
+import utils.PipelineSettings;
+import utils.ProportionMethod;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// Scores every proportion method in the same pass over the tickets: before the proportion of a ticket
+// with known AVs is added, each method estimates its IV, and the distance from the real IV is recorded.
+// A method is scored only once it has enough proportions not to need the cold start
+public class ProportionEvaluation {
+
+    private static final Logger LOGGER = Logger.getLogger(ProportionEvaluation.class.getName());
+
+    private final Map<ProportionMethod, ProportionEstimator> estimators = new EnumMap<>(ProportionMethod.class);
+    private final Map<ProportionMethod, long[]> scores = new EnumMap<>(ProportionMethod.class); // absolute error, exact IVs, scored tickets
+
+    public ProportionEvaluation() {
+        for (ProportionMethod method : ProportionMethod.values()) {
+            estimators.put(method, ProportionEstimator.create(method, PipelineSettings.getProportionWindow()));
+            scores.put(method, new long[3]);
+        }
+    }
+
+    // The ticket must have its real IV
+    public void addTicket(Ticket ticket) {
+        int iv = ticket.getIv().getId();
+        float proportion = Proportion.proportionOf(ticket);
+
+        for (Map.Entry<ProportionMethod, ProportionEstimator> entry : estimators.entrySet()) {
+            ProportionEstimator estimator = entry.getValue();
+            if (estimator.size() >= Proportion.THRESHOLD_COLD_START) {
+                int estimatedIV = Proportion.obtainIV(estimator.estimate(), ticket);
+                long[] score = scores.get(entry.getKey());
+                score[0] += Math.abs(estimatedIV - iv);
+                score[1] += estimatedIV == iv ? 1 : 0;
+                score[2]++;
+            }
+            estimator.add(proportion);
+        }
+    }
+
+    // The method with the lowest mean absolute error on the IV, null if no ticket was scored
+    public ProportionMethod getBestMethod() {
+        ProportionMethod best = null;
+        double bestError = Double.MAX_VALUE;
+        for (Map.Entry<ProportionMethod, long[]> entry : scores.entrySet()) {
+            long[] score = entry.getValue();
+            if (score[2] > 0 && (double) score[0] / score[2] < bestError) {
+                bestError = (double) score[0] / score[2];
+                best = entry.getKey();
+            }
+        }
+        return best;
+    }
+
+    public void report(String projectName) {
+        for (Map.Entry<ProportionMethod, long[]> entry : scores.entrySet()) {
+            long[] score = entry.getValue();
+            if (score[2] > 0) {
+                LOGGER.log(Level.INFO, "{0}: proportion {1} on {2} tickets, mean IV error {3}, exact IV {4}%",
+                        new Object[]{projectName, entry.getKey(), score[2], String.format("%.3f", (double) score[0] / score[2]),
+                                String.format("%.1f", 100.0 * score[1] / score[2])});
+            }
+        }
+        ProportionMethod best = getBestMethod();
+        if (best != null) {
+            LOGGER.log(Level.INFO, "{0}: best proportion method is {1} (selected: {2}).",
+                    new Object[]{projectName, best, PipelineSettings.getProportionMethod()});
+        }
+    }
+}
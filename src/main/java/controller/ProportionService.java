@@ -0,0 +1,242 @@
+package controller;
+
+import model.Release;
+import model.Ticket;
+import utils.JIRAUtils;
+import utils.PipelineSettings;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// Cold-start proportions of the projects, computed from their JIRA tickets at most once per project
+// and kept in a small table on disk (project, proportion, valid tickets, time of computation), so
+// the following runs do not fetch the tickets again. The tickets the run has already fetched for a
+// project (addFetchedTickets) are used instead of fetching them again. Safe to use from several threads: concurrent
+// requests for the same project share a single computation
+public class ProportionService {
+
+    private static final Logger LOGGER = Logger.getLogger(ProportionService.class.getName());
+
+    private static final String HEADER = "Project,Proportion,ValidTickets,ComputedAt";
+
+    private final Path tableFile;
+    private final Duration timeToLive;
+    private final boolean ignoreAge;
+    private final List<String> referenceProjects;
+    private final Map<String, StoredProportion> storedProportions = new ConcurrentHashMap<>();
+    private final Map<String, FutureTask<StoredProportion>> pendingComputations = new ConcurrentHashMap<>();
+    private final Map<String, List<Ticket>> fetchedValidTickets = new ConcurrentHashMap<>();
+    // Proportions computed since then are always reused: the TTL only applies to the ones of earlier runs
+    private final long createdAt = System.currentTimeMillis();
+
+    private static class StoredProportion {
+        final float proportion; // NaN when the project has too few valid tickets
+        final int validTickets;
+        final long computedAt;
+
+        StoredProportion(float proportion, int validTickets, long computedAt) {
+            this.proportion = proportion;
+            this.validTickets = validTickets;
+            this.computedAt = computedAt;
+        }
+    }
+
+    public ProportionService(Path tableFile, Duration timeToLive, boolean ignoreAge, List<String> referenceProjects) {
+        this.tableFile = tableFile;
+        this.timeToLive = timeToLive;
+        this.ignoreAge = ignoreAge;
+        this.referenceProjects = new ArrayList<>();
+        for (String project : referenceProjects) {
+            this.referenceProjects.add(project.toUpperCase());
+        }
+        load();
+    }
+
+    private static class Holder {
+        // Offline runs only replay the recorded JIRA responses, so the stored proportions are kept whatever their age
+        static final ProportionService INSTANCE = new ProportionService(Paths.get(PipelineSettings.getProportionTable()),
+                Duration.ofHours(PipelineSettings.getProportionTtlHours()), PipelineSettings.isJiraOffline(),
+                PipelineSettings.getProportionReferenceProjects());
+    }
+
+    public static ProportionService getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    // Tickets of a project the run has already fetched from JIRA. Those with known AVs are taken now,
+    // before the proportion of the extraction gives AVs to the others
+    public void addFetchedTickets(String projectName, List<Ticket> ticketList) {
+        fetchedValidTickets.put(projectName.toUpperCase(), JIRAUtils.returnValidTickets(ticketList));
+    }
+
+    // The proportion of the project itself or, when reference projects are set, the median of theirs
+    public float getColdStartProportion(String projectName) throws IOException {
+        if (referenceProjects.isEmpty()) {
+            StoredProportion stored = getOrCompute(projectName.toUpperCase());
+            if (Float.isNaN(stored.proportion)) {
+                throw new IllegalStateException(
+                        "Impossibile calcolare la proporzione di cold-start per il progetto '" + projectName +
+                                "'. Richiesti almeno " + Proportion.THRESHOLD_COLD_START + " ticket storici validi, ma trovati " +
+                                stored.validTickets + "."
+                );
+            }
+            return stored.proportion;
+        }
+
+        List<Float> proportions = new ArrayList<>(getProportions(referenceProjects).values());
+        if (proportions.isEmpty()) {
+            throw new IllegalStateException("Impossibile calcolare la proporzione di cold-start per il progetto '" + projectName +
+                    "': nessun progetto di riferimento ha almeno " + Proportion.THRESHOLD_COLD_START + " ticket storici validi.");
+        }
+        return JIRAUtils.median(proportions);
+    }
+
+    // Proportions of the projects with enough valid tickets, computed in parallel when missing
+    public Map<String, Float> getProportions(List<String> projects) throws IOException {
+        Map<String, Float> proportions = new LinkedHashMap<>();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(projects.size(), PipelineSettings.getJiraConcurrency())));
+        try {
+            Map<String, Future<StoredProportion>> results = new LinkedHashMap<>();
+            for (String project : projects) {
+                String key = project.toUpperCase();
+                results.put(key, executor.submit(() -> getOrCompute(key)));
+            }
+            for (Map.Entry<String, Future<StoredProportion>> result : results.entrySet()) {
+                StoredProportion stored = await(result.getValue());
+                if (Float.isNaN(stored.proportion)) {
+                    LOGGER.log(Level.WARNING, "{0} has only {1} valid tickets, it is not used for the cold start.",
+                            new Object[]{result.getKey(), stored.validTickets});
+                } else {
+                    proportions.put(result.getKey(), stored.proportion);
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        return proportions;
+    }
+
+    private StoredProportion getOrCompute(String project) throws IOException {
+        StoredProportion stored = storedProportions.get(project);
+        if (stored != null && isFresh(stored)) {
+            return stored;
+        }
+
+        FutureTask<StoredProportion> computation = new FutureTask<>(() -> compute(project));
+        FutureTask<StoredProportion> pending = pendingComputations.putIfAbsent(project, computation);
+        if (pending == null) {
+            pending = computation;
+            try {
+                computation.run();
+            } finally {
+                pendingComputations.remove(project, computation);
+            }
+        }
+        return await(pending);
+    }
+
+    private boolean isFresh(StoredProportion stored) {
+        return ignoreAge || stored.computedAt >= createdAt || System.currentTimeMillis() - stored.computedAt < timeToLive.toMillis();
+    }
+
+    // Average proportion of the tickets of the project whose affected versions are known
+    private StoredProportion compute(String project) throws IOException, URISyntaxException {
+        List<Ticket> consistentTickets = fetchedValidTickets.get(project);
+        if (consistentTickets == null) {
+            ExtractFromJIRA jiraExtractor = new ExtractFromJIRA(project);
+            List<Release> releaseList = jiraExtractor.getReleaseList();
+            consistentTickets = JIRAUtils.returnValidTickets(jiraExtractor.getTicketList(releaseList, false));
+        }
+
+        float proportion = Float.NaN;
+        if (consistentTickets.size() >= Proportion.THRESHOLD_COLD_START) {
+            Proportion proportionCalculator = new Proportion(project, new ProportionEstimator.RunningMean());
+            for (Ticket t : consistentTickets) {
+                proportionCalculator.addProportion(t);
+            }
+            proportion = proportionCalculator.increment();
+        }
+
+        StoredProportion stored = new StoredProportion(proportion, consistentTickets.size(), System.currentTimeMillis());
+        storedProportions.put(project, stored);
+        save();
+        LOGGER.log(Level.INFO, "{0}: cold-start proportion {1} from {2} valid tickets.",
+                new Object[]{project, proportion, consistentTickets.size()});
+        return stored;
+    }
+
+    private static StoredProportion await(Future<StoredProportion> computation) throws IOException {
+        try {
+            return computation.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while computing a cold-start proportion");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException("Failed to compute a cold-start proportion", cause);
+        }
+    }
+
+    private void load() {
+        if (!Files.exists(tableFile)) {
+            return;
+        }
+
+        try (BufferedReader reader = Files.newBufferedReader(tableFile, StandardCharsets.UTF_8)) {
+            if (!HEADER.equals(reader.readLine())) {
+                LOGGER.log(Level.INFO, "Proportion table {0} has an old format, it will be rebuilt.", tableFile);
+                return;
+            }
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] fields = line.split(",");
+                storedProportions.put(fields[0], new StoredProportion(Float.parseFloat(fields[1]),
+                        Integer.parseInt(fields[2]), Long.parseLong(fields[3])));
+            }
+        } catch (IOException | RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Proportion table {0} is unreadable, it will be rebuilt.", tableFile);
+            storedProportions.clear();
+        }
+    }
+
+    // Rewritten whole on every new proportion: the table has one line per project
+    private synchronized void save() throws IOException {
+        Path parent = tableFile.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path tmpFile = Files.createTempFile(parent, tableFile.getFileName().toString(), ".tmp");
+
+        try {
+            try (BufferedWriter writer = Files.newBufferedWriter(tmpFile, StandardCharsets.UTF_8)) {
+                writer.write(HEADER);
+                writer.newLine();
+                for (Map.Entry<String, StoredProportion> entry : new TreeMap<>(storedProportions).entrySet()) {
+                    StoredProportion stored = entry.getValue();
+                    writer.write(entry.getKey() + "," + stored.proportion + "," + stored.validTickets + "," + stored.computedAt);
+                    writer.newLine();
+                }
+            }
+            Files.move(tmpFile, tableFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmpFile);
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package controller;
+
+import com.github.javaparser.ParseProblemException;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import model.JavaMethod;
+import model.MethodMetrics;
+import model.MethodSnapshot;
+import model.Release;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectLoader;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import utils.GitUtils;
+import utils.MethodCache;
+import utils.PipelineExecutionException;
+import utils.PipelineSettings;
+import utils.SourcePathFilter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static controller.MetricCalculator.calculateMetrics;
+
+// Extracts the methods of the last commit of every release. Files are parsed in parallel,
+// each worker with its own JavaParser, and merged back in release, tree and declaration order
+// so the result does not depend on the scheduling of the workers
+public class ReleaseSnapshotExtractor {
+    private static final Logger LOGGER = Logger.getLogger(ReleaseSnapshotExtractor.class.getName());
+
+    private final Repository repository;
+    private final MethodCache methodCache;
+    private final SourcePathFilter sourcePathFilter;
+    // Distinct blobs of the snapshots found in the method cache and parsed by the last extraction
+    private int reusedBlobs;
+    private int parsedBlobs;
+
+    private static class SourceFile {
+        final String path;
+        final ObjectId blobId;
+
+        SourceFile(String path, ObjectId blobId) {
+            this.path = path;
+            this.blobId = blobId;
+        }
+    }
+
+    public ReleaseSnapshotExtractor(Repository repository, MethodCache methodCache, SourcePathFilter sourcePathFilter) {
+        this.repository = repository;
+        this.methodCache = methodCache;
+        this.sourcePathFilter = sourcePathFilter;
+    }
+
+    // snapshotCommits maps every release, in release order, to the commit of its snapshot
+    public List<JavaMethod> extract(Map<Release, RevCommit> snapshotCommits) throws IOException, PipelineExecutionException {
+        Map<Release, List<SourceFile>> filesByRelease = new LinkedHashMap<>();
+        for (Map.Entry<Release, RevCommit> entry : snapshotCommits.entrySet()) {
+            filesByRelease.put(entry.getKey(), listSourceFiles(entry.getValue()));
+        }
+
+        int numThreads = PipelineSettings.getWorkerThreads();
+        ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+        try {
+            Map<ObjectId, Future<List<MethodSnapshot>>> pendingParses = new HashMap<>();
+            Set<ObjectId> cachedBlobs = new HashSet<>();
+            for (Map.Entry<Release, List<SourceFile>> entry : filesByRelease.entrySet()) {
+                RevCommit commit = snapshotCommits.get(entry.getKey());
+                for (SourceFile file : entry.getValue()) {
+                    if (methodCache.get(file.blobId) != null) {
+                        cachedBlobs.add(file.blobId);
+                    } else if (!pendingParses.containsKey(file.blobId)) {
+                        pendingParses.put(file.blobId, executor.submit(() -> parseMethodSnapshots(file, commit)));
+                    }
+                }
+            }
+            this.reusedBlobs = cachedBlobs.size();
+            this.parsedBlobs = pendingParses.size();
+
+            LOGGER.log(Level.INFO, "Parsing {0} new files on {1} threads.", new Object[]{pendingParses.size(), numThreads});
+
+            List<JavaMethod> allMethodsOfReleases = new ArrayList<>();
+            for (Map.Entry<Release, List<SourceFile>> entry : filesByRelease.entrySet()) {
+                addMethodsOfRelease(entry.getKey(), entry.getValue(), pendingParses, allMethodsOfReleases);
+            }
+            return allMethodsOfReleases;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    public int getReusedBlobs() {
+        return reusedBlobs;
+    }
+
+    public int getParsedBlobs() {
+        return parsedBlobs;
+    }
+
+    private List<SourceFile> listSourceFiles(RevCommit commit) throws IOException {
+        List<SourceFile> files = new ArrayList<>();
+        try (TreeWalk treeWalk = new TreeWalk(repository)) {
+            treeWalk.addTree(commit.getTree());
+            treeWalk.setRecursive(true);
+            treeWalk.setFilter(sourcePathFilter);
+
+            while (treeWalk.next()) {
+                files.add(new SourceFile(treeWalk.getPathString(), treeWalk.getObjectId(0)));
+            }
+        }
+        return files;
+    }
+
+    private void addMethodsOfRelease(Release release, List<SourceFile> files,
+                                     Map<ObjectId, Future<List<MethodSnapshot>>> pendingParses,
+                                     List<JavaMethod> allMethodsOfReleases) throws PipelineExecutionException {
+        Set<String> processedMethodsForRelease = new HashSet<>();
+
+        for (SourceFile file : files) {
+            List<MethodSnapshot> snapshots = methodCache.get(file.blobId);
+            if (snapshots == null) {
+                snapshots = awaitParse(pendingParses.get(file.blobId));
+                if (snapshots == null) {
+                    continue;
+                }
+                methodCache.put(file.blobId, snapshots);
+            }
+
+            for (MethodSnapshot snapshot : snapshots) {
+                String fqn = file.path + "/" + snapshot.getSignature();
+
+                if (processedMethodsForRelease.add(fqn)) {
+                    JavaMethod currentReleaseMethod = createAndConfigureJavaMethod(fqn, release, snapshot);
+                    allMethodsOfReleases.add(currentReleaseMethod);
+                    release.addMethod(currentReleaseMethod);
+                }
+            }
+        }
+    }
+
+    private List<MethodSnapshot> awaitParse(Future<List<MethodSnapshot>> pendingParse) throws PipelineExecutionException {
+        try {
+            return pendingParse.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PipelineExecutionException("Interrupted while parsing release snapshots", e);
+        } catch (ExecutionException e) {
+            throw new PipelineExecutionException("Failed to parse release snapshot file", e.getCause());
+        }
+    }
+
+    // Returns null if the file cannot be parsed, so that the failure is not cached
+    private List<MethodSnapshot> parseMethodSnapshots(SourceFile file, RevCommit commit) throws IOException {
+        ObjectLoader loader = repository.open(file.blobId);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        loader.copyTo(output);
+        String fileContent = output.toString();
+
+        List<MethodDeclaration> methodDeclarations;
+        try {
+            CompilationUnit cu = GitUtils.parseCompilationUnit(fileContent);
+            methodDeclarations = cu.findAll(MethodDeclaration.class);
+        } catch (ParseProblemException | StackOverflowError e) {
+            LOGGER.log(Level.SEVERE, "Parsing error for file: {0} in commit {1}. {2}", new Object[]{file.path, commit.getName(), e.getMessage()});
+            return null;
+        }
+
+        List<MethodSnapshot> snapshots = new ArrayList<>(methodDeclarations.size());
+        for (MethodDeclaration md : methodDeclarations) {
+            snapshots.add(createMethodSnapshot(md));
+        }
+        return snapshots;
+    }
+
+    private MethodSnapshot createMethodSnapshot(MethodDeclaration md) {
+        MethodMetrics metrics = calculateMetrics(md);
+
+        return new MethodSnapshot(JavaMethod.getSignature(md), GitUtils.calculateBodyFingerprint(md),
+                metrics.getLoc(), metrics.getNumParameters(), metrics.getNumberOfBranches(),
+                metrics.getNestingDepth(), metrics.getNumberOfCodeSmells());
+    }
+
+    private JavaMethod createAndConfigureJavaMethod(String fqn, Release release, MethodSnapshot snapshot) {
+        JavaMethod method = new JavaMethod(fqn, release);
+        method.setBodyFingerprint(snapshot.getBodyFingerprint());
+
+        method.setLoc(snapshot.getLoc());
+        method.setNumParameters(snapshot.getNumParameters());
+        method.setNumberOfBranches(snapshot.getNumberOfBranches());
+        method.setNestingDepth(snapshot.getNestingDepth());
+        method.setNumberOfCodeSmells(snapshot.getNumberOfCodeSmells());
+
+        return method;
+    }
+}
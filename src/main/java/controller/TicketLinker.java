@@ -0,0 +1,41 @@
+package controller;
+
+import model.Ticket;
+
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Links commits to tickets through the ticket keys (e.g. BOOKKEEPER-123) written in the commit message.
+// The message is tokenized once and every key is looked up in a hash index of the tickets, so
+// BOOKKEEPER-1 no longer matches a message that only mentions BOOKKEEPER-12
+public class TicketLinker {
+
+    private final Pattern keyPattern;
+    private final Map<String, List<Ticket>> ticketsByKey;
+
+    public TicketLinker(String projectKey, List<Ticket> tickets) {
+        this.keyPattern = Pattern.compile("(?<![A-Za-z0-9])" + Pattern.quote(projectKey.toUpperCase()) + "-\\d+(?!\\d)");
+        this.ticketsByKey = new HashMap<>();
+
+        for (Ticket ticket : tickets) {
+            if (ticket.getId() != null && !ticket.getId().isEmpty()) {
+                ticketsByKey.computeIfAbsent(ticket.getId(), k -> new ArrayList<>(1)).add(ticket);
+            }
+        }
+    }
+
+    // Distinct ticket keys of the project mentioned in the message, in order of appearance
+    public Set<String> extractKeys(String message) {
+        Set<String> keys = new LinkedHashSet<>();
+        Matcher matcher = keyPattern.matcher(message);
+        while (matcher.find()) {
+            keys.add(matcher.group());
+        }
+        return keys;
+    }
+
+    public List<Ticket> getTickets(String key) {
+        return ticketsByKey.getOrDefault(key, Collections.emptyList());
+    }
+}
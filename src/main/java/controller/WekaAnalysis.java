@@ -274,7 +274,11 @@ public class WekaAnalysis {
     private List<PredictionResult> getPredictionResults(Classifier clf, Instances data) throws Exception {
         List<PredictionResult> results = new ArrayList<>();
         int buggyClassIndex = data.classAttribute().indexOfValue("yes");
-        int locIndex = data.attribute("LOC").index();
+        Attribute locAttr = data.attribute("LOC");
+        if (locAttr == null) {
+            throw new IllegalStateException("Dataset must have a 'LOC' attribute.");
+        }
+        int locIndex = locAttr.index();
 
         for (int i = 0; i < data.numInstances(); i++) {
             Instance inst = data.instance(i);
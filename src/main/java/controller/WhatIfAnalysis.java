@@ -1,8 +1,10 @@
 package controller;
 
 import model.WekaClassifier;
+import utils.PipelineExecutionException;
 import utils.PrintUtils;
 import weka.classifiers.Classifier;
+import weka.core.Attribute;
 import weka.core.Instance;
 import weka.core.Instances;
 import weka.core.converters.CSVSaver;
@@ -28,6 +30,12 @@ public class WhatIfAnalysis {
     public void execute() throws Exception {
         LOGGER.info("--- Starting What-If Analysis ---");
 
+        // A dataset written before NSmells was always kept, or edited by hand, may not have it
+        if (this.datasetA.attribute("NSmells") == null) {
+            throw new PipelineExecutionException("Dataset of " + this.project + " has no 'NSmells' attribute: the what-if analysis needs it, "
+                    + "extract the dataset again.");
+        }
+
         // --- Create datasets B+, C, e B ---
         LOGGER.info("Creating sub-datasets based on NSmells...");
 
@@ -40,7 +48,6 @@ public class WhatIfAnalysis {
         // --- B: Like B+ but with NSmells brought to  0
         Instances datasetB = new Instances(datasetBPlus);
         int nSmellsIndex = datasetB.attribute("NSmells").index();
-        if (nSmellsIndex == -1) throw new IllegalStateException("Feature 'NSmells' not found.");
         datasetB.forEach(instance -> instance.setValue(nSmellsIndex, 0));
 
         // --- Train BClassifier on A (BClassifierA) ---
@@ -78,10 +85,11 @@ public class WhatIfAnalysis {
 
 
     private Instances filterBySmell(Instances data, String comparison) {
-        int attrIndex = data.attribute("NSmells").index();
-        if (attrIndex == -1) {
+        Attribute nSmellsAttr = data.attribute("NSmells");
+        if (nSmellsAttr == null) {
             throw new IllegalArgumentException("Attribute not found: " + "NSmells");
         }
+        int attrIndex = nSmellsAttr.index();
 
         Instances filteredData = new Instances(data, 0);
 
@@ -0,0 +1,73 @@
+package model;
+
+import java.util.Arrays;
+
+// Set of commits as sorted indices into the CommitTable. Commits are almost always added in table
+// order, so adding is an append and membership is a binary search
+public class CommitSet {
+
+    private static final int INITIAL_CAPACITY = 4;
+
+    private int[] commits;
+    private int size;
+
+    public CommitSet() {
+        this.commits = new int[0];
+        this.size = 0;
+    }
+
+    public void add(int commit) {
+        if (size > 0 && commits[size - 1] >= commit) {
+            insert(commit);
+            return;
+        }
+        ensureCapacity();
+        commits[size++] = commit;
+    }
+
+    private void insert(int commit) {
+        int position = Arrays.binarySearch(commits, 0, size, commit);
+        if (position >= 0) {
+            return;
+        }
+        position = -position - 1;
+        ensureCapacity();
+        System.arraycopy(commits, position, commits, position + 1, size - position);
+        commits[position] = commit;
+        size++;
+    }
+
+    private void ensureCapacity() {
+        if (size == commits.length) {
+            commits = Arrays.copyOf(commits, Math.max(INITIAL_CAPACITY, commits.length * 2));
+        }
+    }
+
+    public boolean contains(int commit) {
+        return Arrays.binarySearch(commits, 0, size, commit) >= 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    // The k-th commit in table order
+    public int get(int k) {
+        if (k >= size) {
+            throw new IndexOutOfBoundsException("Index " + k + " out of bounds for size " + size);
+        }
+        return commits[k];
+    }
+
+    public int first() {
+        return get(0);
+    }
+
+    public int last() {
+        return get(size - 1);
+    }
+}
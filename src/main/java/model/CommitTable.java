@@ -0,0 +1,147 @@
+package model;
+
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.revwalk.RevCommit;
+
+import java.time.LocalDate;
+import java.util.*;
+
+// Columnar table of the commits of the repository, in commit time order. The domain model refers to
+// commits by their index in this table, so no RevCommit (and its raw buffer) is kept alive after the
+// table is built. Author and committer names are interned: every column only holds an int
+public class CommitTable {
+
+    private static final int NO_NAME = -1;
+
+    // Compatibility with the Methods.csv of the baseline, which wrote RevCommit.toString() of the commits
+    // of git log: JGit ends that text with the seen and parsed flags of the walk. Only the report keeps it
+    private static final String BASELINE_DESCRIPTION_SUFFIX = " -----sp";
+
+    private final ObjectId[] ids;
+    private final int[] commitTimes;
+    private final int[] authorIds;
+    private final int[] committerIds;
+
+    private final List<String> names;
+
+    private CommitTable(ObjectId[] ids, int[] commitTimes, int[] authorIds, int[] committerIds, List<String> names) {
+        this.ids = ids;
+        this.commitTimes = commitTimes;
+        this.authorIds = authorIds;
+        this.committerIds = committerIds;
+        this.names = names;
+    }
+
+    public static CommitTable empty() {
+        return new Builder().build();
+    }
+
+    // Collects the commits in any order, reading only the fields of the table, so the caller can drop
+    // the body of each commit as soon as it is added. The table is sorted by commit time, commits with
+    // the same time keeping the order they were added in
+    public static class Builder {
+        private ObjectId[] ids = new ObjectId[1024];
+        private int[] commitTimes = new int[1024];
+        private int[] authorIds = new int[1024];
+        private int[] committerIds = new int[1024];
+        private int size = 0;
+
+        private final List<String> names = new ArrayList<>();
+        private final Map<String, Integer> nameIds = new HashMap<>();
+
+        public void add(RevCommit commit) {
+            if (size == ids.length) {
+                int capacity = size * 2;
+                ids = Arrays.copyOf(ids, capacity);
+                commitTimes = Arrays.copyOf(commitTimes, capacity);
+                authorIds = Arrays.copyOf(authorIds, capacity);
+                committerIds = Arrays.copyOf(committerIds, capacity);
+            }
+            ids[size] = commit.copy();
+            commitTimes[size] = commit.getCommitTime();
+            authorIds[size] = internName(commit.getAuthorIdent());
+            committerIds[size] = internName(commit.getCommitterIdent());
+            size++;
+        }
+
+        private int internName(PersonIdent ident) {
+            if (ident == null || ident.getName() == null) {
+                return NO_NAME;
+            }
+            return nameIds.computeIfAbsent(ident.getName(), name -> {
+                names.add(name);
+                return names.size() - 1;
+            });
+        }
+
+        public CommitTable build() {
+            // (time, position) keys: sorting them is stable on the time
+            long[] keys = new long[size];
+            for (int i = 0; i < size; i++) {
+                keys[i] = ((long) commitTimes[i] << 32) | i;
+            }
+            Arrays.sort(keys);
+
+            ObjectId[] sortedIds = new ObjectId[size];
+            int[] sortedTimes = new int[size];
+            int[] sortedAuthors = new int[size];
+            int[] sortedCommitters = new int[size];
+            for (int i = 0; i < size; i++) {
+                int position = (int) keys[i];
+                sortedIds[i] = ids[position];
+                sortedTimes[i] = commitTimes[position];
+                sortedAuthors[i] = authorIds[position];
+                sortedCommitters[i] = committerIds[position];
+            }
+            return new CommitTable(sortedIds, sortedTimes, sortedAuthors, sortedCommitters, names);
+        }
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    public boolean isEmpty() {
+        return ids.length == 0;
+    }
+
+    public ObjectId getId(int commit) {
+        return ids[commit];
+    }
+
+    public String getName(int commit) {
+        return ids[commit].getName();
+    }
+
+    public int getCommitTime(int commit) {
+        return commitTimes[commit];
+    }
+
+    public long getCommitDay(int commit) {
+        return ReleaseTimeline.toEpochDay(commitTimes[commit]);
+    }
+
+    public LocalDate getCommitDate(int commit) {
+        return LocalDate.ofEpochDay(getCommitDay(commit));
+    }
+
+    // Interned id of the author name, or -1 if the commit has no author name
+    public int getAuthorId(int commit) {
+        return authorIds[commit];
+    }
+
+    public int getNumNames() {
+        return names.size();
+    }
+
+    public String getCommitterName(int commit) {
+        int nameId = committerIds[commit];
+        return nameId == NO_NAME ? null : names.get(nameId);
+    }
+
+    // "commit <sha> <commit time in seconds> -----sp", the firstCommit column of Methods.csv
+    public String describe(int commit) {
+        return "commit " + getName(commit) + " " + commitTimes[commit] + BASELINE_DESCRIPTION_SUFFIX;
+    }
+}
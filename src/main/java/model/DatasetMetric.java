@@ -0,0 +1,83 @@
+package model;
+
+import java.util.List;
+import java.util.function.Function;
+
+// Features of the dataset, in column order. Each one declares the cheapest pass of the pipeline that
+// computes it, so only the passes needed by the selected features are run
+public enum DatasetMetric {
+    LOC("LOC", Cost.AST, JavaMethod::getLoc),
+    PARAMETERS("#Parameters", Cost.AST, JavaMethod::getNumParameters),
+    AUTHORS("#Authors", Cost.HISTORY, JavaMethod::getNumAuthors),
+    REVISIONS("#Revisions", Cost.HISTORY, JavaMethod::getNumRevisions),
+    STMT_ADDED("StmtAdded", Cost.HISTORY, JavaMethod::getTotalStmtAdded),
+    STMT_DELETED("StmtDeleted", Cost.HISTORY, JavaMethod::getTotalStmtDeleted),
+    MAX_CHURN("MaxChurn", Cost.HISTORY, JavaMethod::getMaxChurnInARevision),
+    AVG_CHURN("AvgChurn", Cost.HISTORY, JavaMethod::getAvgChurn),
+    BRANCHES("#Branches", Cost.AST, JavaMethod::getNumberOfBranches),
+    NESTING_DEPTH("NestingDepth", Cost.AST, JavaMethod::getNestingDepth),
+    NFIX("NFix", Cost.FIX_HISTORY, JavaMethod::getNFix),
+    NSMELLS("NSmells", Cost.AST, JavaMethod::getNumberOfCodeSmells);
+
+    // Passes from the cheapest: each one also needs the previous ones
+    public enum Cost {
+        // Parse of the release snapshots
+        AST,
+        // Visit of every commit that changes a method (the buggyness only needs the fix commits)
+        HISTORY,
+        // Fix commits counted on the history of each method
+        FIX_HISTORY
+    }
+
+    private final String columnName;
+    private final Cost cost;
+    private final Function<JavaMethod, Object> extractor;
+
+    DatasetMetric(String columnName, Cost cost, Function<JavaMethod, Object> extractor) {
+        this.columnName = columnName;
+        this.cost = cost;
+        this.extractor = extractor;
+    }
+
+    public String getColumnName() {
+        return columnName;
+    }
+
+    public Cost getCost() {
+        return cost;
+    }
+
+    public String valueOf(JavaMethod method) {
+        return String.valueOf(extractor.apply(method));
+    }
+
+    // The most expensive pass needed by the metrics (AST when there are none)
+    public static Cost requiredCost(List<DatasetMetric> metrics) {
+        Cost required = Cost.AST;
+        for (DatasetMetric metric : metrics) {
+            if (metric.getCost().compareTo(required) > 0) {
+                required = metric.getCost();
+            }
+        }
+        return required;
+    }
+
+    // Column names, in column order
+    public static String[] columnNames() {
+        String[] names = new String[values().length];
+        for (DatasetMetric metric : values()) {
+            names[metric.ordinal()] = metric.columnName;
+        }
+        return names;
+    }
+
+    // Column or constant name, case insensitive; null if there is none
+    public static DatasetMetric fromName(String name) {
+        for (DatasetMetric metric : values()) {
+            if (metric.columnName.equalsIgnoreCase(name) || metric.name().equalsIgnoreCase(name)) {
+                return metric;
+            }
+        }
+        return null;
+    }
+}
@@ -1,10 +1,7 @@
 package model;
 
 import com.github.javaparser.ast.body.MethodDeclaration;
-import org.eclipse.jgit.revwalk.RevCommit;
 
-import java.util.ArrayList;
-import java.util.List;
 import java.util.Objects;
 
 public class JavaMethod {
@@ -12,10 +9,10 @@ public class JavaMethod {
     private String fullyQualifiedName; // Es: com/example/MyClass.java/myMethod(int,String)
     private Release release;
 
-    private String bodyHash;
+    private long bodyFingerprint; // Token fingerprint of the body
 
-    private List<RevCommit> commits; // Commits that change the method
-    private List<RevCommit> fixCommits; // Commits that fixed the method
+    private final CommitSet commits; // Commits that change the method
+    private final CommitSet fixCommits; // Commits that fixed the method
     private boolean buggy;
 
     //metrics
@@ -36,8 +33,8 @@ public class JavaMethod {
     public JavaMethod(String fullyQualifiedName, Release release) {
         this.fullyQualifiedName = fullyQualifiedName;
         this.release = release;
-        this.commits = new ArrayList<>();
-        this.fixCommits = new ArrayList<>();
+        this.commits = new CommitSet();
+        this.fixCommits = new CommitSet();
         this.buggy = false;
 
         this.loc = 0;
@@ -92,11 +89,11 @@ public class JavaMethod {
         this.fullyQualifiedName = fullyQualifiedName;
     }
 
-    public void addCommit(RevCommit commit) {
+    public void addCommit(int commit) {
         commits.add(commit);
     }
 
-    public void addFixCommit(RevCommit commit) {
+    public void addFixCommit(int commit) {
         fixCommits.add(commit);
     }
 
@@ -105,11 +102,11 @@ public class JavaMethod {
         return md.getSignature().asString();
     }
 
-    public List<RevCommit> getFixCommits() {
+    public CommitSet getFixCommits() {
         return fixCommits;
     }
 
-    public List<RevCommit> getCommits() {
+    public CommitSet getCommits() {
         return commits;
     }
 
@@ -153,12 +150,12 @@ public class JavaMethod {
 
     public void addStmtDeleted(int count) { this.totalStmtDeleted += count; }
 
-    public String getBodyHash() {
-        return bodyHash;
+    public long getBodyFingerprint() {
+        return bodyFingerprint;
     }
 
-    public void setBodyHash(String bodyHash) {
-        this.bodyHash = bodyHash;
+    public void setBodyFingerprint(long bodyFingerprint) {
+        this.bodyFingerprint = bodyFingerprint;
     }
 
     public int getNumberOfBranches() {
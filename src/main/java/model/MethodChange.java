@@ -0,0 +1,31 @@
+package model;
+
+// A method whose body was changed by a commit, with the statements added and deleted by the change
+public class MethodChange {
+
+    private final String fullyQualifiedName;
+    private final int stmtAdded;
+    private final int stmtDeleted;
+
+    public MethodChange(String fullyQualifiedName, int stmtAdded, int stmtDeleted) {
+        this.fullyQualifiedName = fullyQualifiedName;
+        this.stmtAdded = stmtAdded;
+        this.stmtDeleted = stmtDeleted;
+    }
+
+    public String getFullyQualifiedName() {
+        return fullyQualifiedName;
+    }
+
+    public int getStmtAdded() {
+        return stmtAdded;
+    }
+
+    public int getStmtDeleted() {
+        return stmtDeleted;
+    }
+
+    public int getChurn() {
+        return stmtAdded + stmtDeleted;
+    }
+}
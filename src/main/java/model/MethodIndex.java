@@ -0,0 +1,86 @@
+package model;
+
+import java.time.LocalDate;
+import java.util.*;
+
+// Index of the project methods by fully qualified name. The versions of a method are kept
+// sorted by release date (release ids follow the same order), so the releases affected by a
+// commit or by a bug are found with a binary search instead of a scan of all the methods
+public class MethodIndex {
+
+    private static final Comparator<JavaMethod> RELEASE_ORDER =
+            Comparator.comparing((JavaMethod m) -> m.getRelease().getDate())
+                    .thenComparingInt(m -> m.getRelease().getId());
+
+    private final Map<String, JavaMethod[]> methodsByFqn;
+
+    public MethodIndex(List<JavaMethod> methods) {
+        Map<String, List<JavaMethod>> grouped = new HashMap<>();
+        for (JavaMethod method : methods) {
+            grouped.computeIfAbsent(method.getFullyQualifiedName(), k -> new ArrayList<>(1)).add(method);
+        }
+
+        this.methodsByFqn = new HashMap<>(grouped.size() * 2);
+        for (Map.Entry<String, List<JavaMethod>> entry : grouped.entrySet()) {
+            JavaMethod[] versions = entry.getValue().toArray(new JavaMethod[0]);
+            Arrays.sort(versions, RELEASE_ORDER);
+            methodsByFqn.put(entry.getKey(), versions);
+        }
+    }
+
+    // Versions of the method in releases dated on or after the given date
+    public List<JavaMethod> getVersionsOnOrAfter(String fqn, LocalDate date) {
+        JavaMethod[] versions = methodsByFqn.get(fqn);
+        if (versions == null) {
+            return Collections.emptyList();
+        }
+
+        int low = 0;
+        int high = versions.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (versions[mid].getRelease().getDate().isBefore(date)) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return Arrays.asList(versions).subList(low, versions.length);
+    }
+
+    // Versions of the method in releases with fromId <= id < toId
+    public List<JavaMethod> getVersionsInRange(String fqn, int fromId, int toId) {
+        JavaMethod[] versions = methodsByFqn.get(fqn);
+        if (versions == null || fromId >= toId) {
+            return Collections.emptyList();
+        }
+        return Arrays.asList(versions).subList(lowerBound(versions, fromId), lowerBound(versions, toId));
+    }
+
+    public JavaMethod getVersion(String fqn, int releaseId) {
+        JavaMethod[] versions = methodsByFqn.get(fqn);
+        if (versions == null) {
+            return null;
+        }
+
+        int position = lowerBound(versions, releaseId);
+        if (position < versions.length && versions[position].getRelease().getId() == releaseId) {
+            return versions[position];
+        }
+        return null;
+    }
+
+    private static int lowerBound(JavaMethod[] versions, int releaseId) {
+        int low = 0;
+        int high = versions.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (versions[mid].getRelease().getId() < releaseId) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,39 @@
+package model;
+
+// Static metrics of one method (or constructor) body
+public class MethodMetrics {
+
+    private final int loc;
+    private final int numParameters;
+    private final int numberOfBranches;
+    private final int nestingDepth;
+    private final int numberOfCodeSmells;
+
+    public MethodMetrics(int loc, int numParameters, int numberOfBranches, int nestingDepth, int numberOfCodeSmells) {
+        this.loc = loc;
+        this.numParameters = numParameters;
+        this.numberOfBranches = numberOfBranches;
+        this.nestingDepth = nestingDepth;
+        this.numberOfCodeSmells = numberOfCodeSmells;
+    }
+
+    public int getLoc() {
+        return loc;
+    }
+
+    public int getNumParameters() {
+        return numParameters;
+    }
+
+    public int getNumberOfBranches() {
+        return numberOfBranches;
+    }
+
+    public int getNestingDepth() {
+        return nestingDepth;
+    }
+
+    public int getNumberOfCodeSmells() {
+        return numberOfCodeSmells;
+    }
+}
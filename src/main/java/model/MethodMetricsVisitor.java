@@ -0,0 +1,218 @@
+package model;
+
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.body.VariableDeclarator;
+import com.github.javaparser.ast.expr.*;
+import com.github.javaparser.ast.stmt.*;
+import com.github.javaparser.ast.visitor.VoidVisitorAdapter;
+
+// Collects in a single walk of a method body what the metrics need: the branch decisions (each
+// decision point plus the && and || of its condition), the maximum nesting of the control
+// structures and the facts behind the code smells (magic numbers, switch without default, empty
+// catch, return null, message chains of three or more calls)
+public class MethodMetricsVisitor extends VoidVisitorAdapter<Void> {
+    private int branchCount = 0;
+
+    private int currentDepth = 0;
+    private int maxDepth = 0;
+    // The resources of a try statement do not count for the nesting
+    private int nestingSuspended = 0;
+
+    private int magicNumberCount = 0;
+    private boolean missingDefaultInSwitch = false;
+    private boolean emptyCatchBlock = false;
+    private boolean returningNull = false;
+    private boolean messageChain = false;
+
+    private void countLogicalOperatorsInCondition(Node conditionNode) {
+        if (conditionNode instanceof BinaryExpr) {
+            BinaryExpr bn = (BinaryExpr) conditionNode;
+            if (bn.getOperator() == BinaryExpr.Operator.AND || bn.getOperator() == BinaryExpr.Operator.OR) {
+                branchCount++;
+                countLogicalOperatorsInCondition(bn.getLeft());
+                countLogicalOperatorsInCondition(bn.getRight());
+            }
+        }
+    }
+
+    private void enterControlStructure() {
+        currentDepth++;
+        if (nestingSuspended == 0 && currentDepth > maxDepth) {
+            maxDepth = currentDepth;
+        }
+    }
+
+    private void exitControlStructure() {
+        currentDepth--;
+    }
+
+    @Override
+    public void visit(IfStmt n, Void arg) {
+        branchCount++;
+        countLogicalOperatorsInCondition(n.getCondition());
+        enterControlStructure();
+        super.visit(n, arg); // Visita il corpo e l'eventuale 'else'
+        exitControlStructure();
+    }
+
+    @Override
+    public void visit(ForStmt n, Void arg) {
+        branchCount++;
+        n.getCompare().ifPresent(this::countLogicalOperatorsInCondition);
+        enterControlStructure();
+        super.visit(n, arg);
+        exitControlStructure();
+    }
+
+    @Override
+    public void visit(ForEachStmt n, Void arg) {
+        branchCount++;
+        enterControlStructure();
+        super.visit(n, arg);
+        exitControlStructure();
+    }
+
+    @Override
+    public void visit(WhileStmt n, Void arg) {
+        branchCount++;
+        countLogicalOperatorsInCondition(n.getCondition());
+        enterControlStructure();
+        super.visit(n, arg);
+        exitControlStructure();
+    }
+
+    @Override
+    public void visit(DoStmt n, Void arg) {
+        branchCount++;
+        countLogicalOperatorsInCondition(n.getCondition());
+        enterControlStructure();
+        super.visit(n, arg);
+        exitControlStructure();
+    }
+
+    @Override
+    public void visit(SwitchStmt n, Void arg) {
+        if (n.getEntries().stream().noneMatch(entry -> entry.getLabels().isEmpty())) {
+            missingDefaultInSwitch = true;
+        }
+        enterControlStructure();
+        super.visit(n, arg);
+        exitControlStructure();
+    }
+
+    @Override
+    public void visit(SwitchEntry n, Void arg) {
+        if (!n.getLabels().isEmpty()) {
+            branchCount++;
+        }
+        super.visit(n, arg);
+    }
+
+    @Override
+    public void visit(ConditionalExpr n, Void arg) {
+        branchCount++;
+        countLogicalOperatorsInCondition(n.getCondition());
+        super.visit(n, arg);
+    }
+
+    @Override
+    public void visit(TryStmt n, Void arg) {
+        enterControlStructure();
+        nestingSuspended++;
+        n.getResources().forEach(r -> r.accept(this, arg));
+        nestingSuspended--;
+        n.getTryBlock().accept(this, arg);
+        n.getCatchClauses().forEach(c -> c.accept(this, arg));
+        n.getFinallyBlock().ifPresent(f -> f.accept(this, arg));
+        exitControlStructure();
+    }
+
+    @Override
+    public void visit(CatchClause n, Void arg) {
+        branchCount++;
+        if (n.getBody().getStatements().isEmpty() && n.getBody().getComment().isEmpty()) {
+            emptyCatchBlock = true;
+        }
+        enterControlStructure();
+        super.visit(n, arg);
+        exitControlStructure();
+    }
+
+    @Override
+    public void visit(SynchronizedStmt n, Void arg) {
+        enterControlStructure();
+        super.visit(n, arg);
+        exitControlStructure();
+    }
+
+    @Override
+    public void visit(IntegerLiteralExpr n, Void arg) {
+        if (isMagicNumber(n)) {
+            magicNumberCount++;
+        }
+        super.visit(n, arg);
+    }
+
+    @Override
+    public void visit(ReturnStmt n, Void arg) {
+        if (n.getExpression().isPresent() && n.getExpression().get() instanceof NullLiteralExpr) {
+            returningNull = true;
+        }
+        super.visit(n, arg);
+    }
+
+    @Override
+    public void visit(MethodCallExpr n, Void arg) {
+        if (!messageChain) {
+            int chainLength = 0;
+            Node scope = n.getScope().orElse(null);
+            while (scope instanceof MethodCallExpr) {
+                chainLength++;
+                scope = ((MethodCallExpr) scope).getScope().orElse(null);
+            }
+            messageChain = chainLength >= 3;
+        }
+        super.visit(n, arg);
+    }
+
+    // Literals other than 0 and 1 that do not initialize a variable
+    private static boolean isMagicNumber(IntegerLiteralExpr n) {
+        try {
+            int val = n.asInt();
+            if (val == 0 || val == 1 || val == -1) {
+                return false;
+            }
+        } catch (Exception e) {
+            return false;
+        }
+        return n.getParentNode().map(p -> !(p instanceof VariableDeclarator)).orElse(true);
+    }
+
+    public int getBranchCount() {
+        return branchCount;
+    }
+
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    public int getMagicNumberCount() {
+        return magicNumberCount;
+    }
+
+    public boolean hasMissingDefaultInSwitch() {
+        return missingDefaultInSwitch;
+    }
+
+    public boolean hasEmptyCatchBlock() {
+        return emptyCatchBlock;
+    }
+
+    public boolean isReturningNull() {
+        return returningNull;
+    }
+
+    public boolean hasMessageChain() {
+        return messageChain;
+    }
+}
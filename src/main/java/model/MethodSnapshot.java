@@ -0,0 +1,53 @@
+package model;
+
+// Per-method results of parsing one version of a file: everything needed to
+// build a JavaMethod for a release without parsing the file again
+public class MethodSnapshot {
+
+    private final String signature;
+    private final long bodyFingerprint;
+    private final int loc;
+    private final int numParameters;
+    private final int numberOfBranches;
+    private final int nestingDepth;
+    private final int numberOfCodeSmells;
+
+    public MethodSnapshot(String signature, long bodyFingerprint, int loc, int numParameters,
+                          int numberOfBranches, int nestingDepth, int numberOfCodeSmells) {
+        this.signature = signature;
+        this.bodyFingerprint = bodyFingerprint;
+        this.loc = loc;
+        this.numParameters = numParameters;
+        this.numberOfBranches = numberOfBranches;
+        this.nestingDepth = nestingDepth;
+        this.numberOfCodeSmells = numberOfCodeSmells;
+    }
+
+    public String getSignature() {
+        return signature;
+    }
+
+    public long getBodyFingerprint() {
+        return bodyFingerprint;
+    }
+
+    public int getLoc() {
+        return loc;
+    }
+
+    public int getNumParameters() {
+        return numParameters;
+    }
+
+    public int getNumberOfBranches() {
+        return numberOfBranches;
+    }
+
+    public int getNestingDepth() {
+        return nestingDepth;
+    }
+
+    public int getNumberOfCodeSmells() {
+        return numberOfCodeSmells;
+    }
+}
@@ -1,7 +1,5 @@
 package model;
 
-import org.eclipse.jgit.revwalk.RevCommit;
-
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
@@ -11,13 +9,13 @@ public class Release {
     private int id;
     private String name;
     private final LocalDate date;
-    private final List<RevCommit> commitList;
+    private final CommitSet commits;
     private final List <JavaMethod> methodList;     //list of all methods related to that version
 
     public Release(String name, LocalDate date) {
         this.name = name;
         this.date = date;
-        this.commitList = new ArrayList<>();
+        this.commits = new CommitSet();
         this.methodList = new ArrayList<>();
     }
 
@@ -46,11 +44,11 @@ public class Release {
         this.methodList.add(method);
     }
 
-    public List<RevCommit> getCommitList() {
-        return commitList;
+    public CommitSet getCommits() {
+        return commits;
     }
 
-    public void addCommit(RevCommit commit){
-        this.commitList.add(commit);
+    public void addCommit(int commit){
+        this.commits.add(commit);
     }
 }
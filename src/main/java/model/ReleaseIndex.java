@@ -0,0 +1,70 @@
+package model;
+
+import java.time.LocalDate;
+import java.util.*;
+
+// Immutable lookups on the JIRA releases: by date (first release on or after a day), by name and by
+// id. Built once from the release list, which is copied and never reordered
+public class ReleaseIndex {
+
+    private final List<Release> releasesByDate;
+    private final NavigableMap<LocalDate, Release> releaseByDate;
+    private final Map<String, Release> releaseByName;
+    private final Release[] releaseById;
+
+    public ReleaseIndex(List<Release> releases) {
+        List<Release> sorted = new ArrayList<>(releases);
+        sorted.sort(Comparator.comparing(Release::getDate));
+        this.releasesByDate = Collections.unmodifiableList(sorted);
+
+        // With equal dates or names the first release in date order wins, as with a scan of the list
+        this.releaseByDate = new TreeMap<>();
+        this.releaseByName = new HashMap<>();
+        int maxId = 0;
+        for (Release release : sorted) {
+            releaseByDate.putIfAbsent(release.getDate(), release);
+            releaseByName.putIfAbsent(release.getName(), release);
+            maxId = Math.max(maxId, release.getId());
+        }
+
+        this.releaseById = new Release[maxId + 1];
+        for (Release release : sorted) {
+            if (release.getId() > 0 && releaseById[release.getId()] == null) {
+                releaseById[release.getId()] = release;
+            }
+        }
+    }
+
+    // The first release which has a date after or equal to the one given, null if there is none
+    public Release getReleaseAfterOrEqualDate(LocalDate date) {
+        Map.Entry<LocalDate, Release> entry = releaseByDate.ceilingEntry(date);
+        return entry == null ? null : entry.getValue();
+    }
+
+    public Release getByName(String name) {
+        return releaseByName.get(name);
+    }
+
+    public Release getById(int id) {
+        return id > 0 && id < releaseById.length ? releaseById[id] : null;
+    }
+
+    // The releases with an id strictly between the two, in id order
+    public List<Release> getReleasesBetween(int fromId, int toId) {
+        List<Release> between = new ArrayList<>();
+        for (int id = Math.max(fromId + 1, 1); id < Math.min(toId, releaseById.length); id++) {
+            if (releaseById[id] != null) {
+                between.add(releaseById[id]);
+            }
+        }
+        return between;
+    }
+
+    public Release getFirst() {
+        return releasesByDate.isEmpty() ? null : releasesByDate.get(0);
+    }
+
+    public List<Release> getReleases() {
+        return releasesByDate;
+    }
+}
@@ -0,0 +1,78 @@
+package model;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.zone.ZoneRules;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// Immutable table of release boundaries as sorted epoch days. The release of a commit is found
+// with a binary search on the commit day (in the local time zone, as the release dates are)
+public class ReleaseTimeline {
+
+    private static final long SECONDS_PER_DAY = 86_400L;
+    private static final ZoneRules LOCAL_ZONE_RULES = ZoneId.systemDefault().getRules();
+
+    // Commits are only considered from the local day of the Unix epoch
+    private static final long LOWER_BOUND_DAY = toEpochDay(0L);
+
+    private final Release[] releases;
+    private final long[] releaseDays;
+
+    // The releases must be sorted by date
+    public ReleaseTimeline(List<Release> releases) {
+        this.releases = releases.toArray(new Release[0]);
+        this.releaseDays = new long[this.releases.length];
+        for (int i = 0; i < this.releases.length; i++) {
+            this.releaseDays[i] = this.releases[i].getDate().toEpochDay();
+            if (i > 0 && this.releaseDays[i] < this.releaseDays[i - 1]) {
+                throw new IllegalArgumentException("Releases must be sorted by date");
+            }
+        }
+    }
+
+    public static long toEpochDay(long epochSecond) {
+        long offset = LOCAL_ZONE_RULES.getOffset(Instant.ofEpochSecond(epochSecond)).getTotalSeconds();
+        return Math.floorDiv(epochSecond + offset, SECONDS_PER_DAY);
+    }
+
+    // The release whose interval (previous release date, release date] contains the day
+    public Release getReleaseOfDay(long day) {
+        int position = firstReleaseOnOrAfter(day);
+        if (position == releases.length || (position == 0 && day <= LOWER_BOUND_DAY)) {
+            return null;
+        }
+        return releases[position];
+    }
+
+    // The releases whose interval [previous release date, release date] contains the day: a commit
+    // made on the day of a release belongs both to that release and to the following one
+    public List<Release> getReleasesContainingDay(long day) {
+        int position = firstReleaseOnOrAfter(day);
+        if (position == releases.length || (position == 0 && day < LOWER_BOUND_DAY)) {
+            return Collections.emptyList();
+        }
+
+        List<Release> containing = new ArrayList<>(1);
+        containing.add(releases[position]);
+        for (int next = position + 1; next < releases.length && releaseDays[next - 1] == day; next++) {
+            containing.add(releases[next]);
+        }
+        return containing;
+    }
+
+    private int firstReleaseOnOrAfter(long day) {
+        int low = 0;
+        int high = releaseDays.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (releaseDays[mid] < day) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
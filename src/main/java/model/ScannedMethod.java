@@ -0,0 +1,88 @@
+package model;
+
+// Method declaration found in a version of a file: its signature, its position (lines and columns
+// start from 1, as in the parser ranges), the fingerprint of the body tokens and the LOC of the body.
+// The body is measured on the first call of getBodyFingerprint or getLoc, so a method the history pass
+// finds outside the diff edits is never hashed. Not thread-safe: a method stays on the thread that scanned it
+public class ScannedMethod {
+
+    // Fingerprint and LOC of a body, computed together in one walk of its tokens
+    public static final class BodyMeasure {
+        private final long fingerprint;
+        private final int loc;
+
+        public BodyMeasure(long fingerprint, int loc) {
+            this.fingerprint = fingerprint;
+            this.loc = loc;
+        }
+    }
+
+    public interface BodyMeasurer {
+        BodyMeasure measure();
+    }
+
+    private final String signature;
+    private final int beginLine;
+    private final int beginColumn;
+    private final int endLine;
+    private final int endColumn;
+    private BodyMeasurer bodyMeasurer; // Dropped once used, with the source it holds
+    private BodyMeasure bodyMeasure;
+
+    public ScannedMethod(String signature, int beginLine, int beginColumn, int endLine, int endColumn,
+                         long bodyFingerprint, int loc) {
+        this(signature, beginLine, beginColumn, endLine, endColumn, null);
+        this.bodyMeasure = new BodyMeasure(bodyFingerprint, loc);
+    }
+
+    public ScannedMethod(String signature, int beginLine, int beginColumn, int endLine, int endColumn,
+                         BodyMeasurer bodyMeasurer) {
+        this.signature = signature;
+        this.beginLine = beginLine;
+        this.beginColumn = beginColumn;
+        this.endLine = endLine;
+        this.endColumn = endColumn;
+        this.bodyMeasurer = bodyMeasurer;
+    }
+
+    public String getSignature() {
+        return signature;
+    }
+
+    public int getBeginLine() {
+        return beginLine;
+    }
+
+    public int getBeginColumn() {
+        return beginColumn;
+    }
+
+    public int getEndLine() {
+        return endLine;
+    }
+
+    public int getEndColumn() {
+        return endColumn;
+    }
+
+    public long getBodyFingerprint() {
+        return measure().fingerprint;
+    }
+
+    // As MetricCalculator.calculateLOC, 0 without a body
+    public int getLoc() {
+        return measure().loc;
+    }
+
+    public boolean isMeasured() {
+        return bodyMeasure != null;
+    }
+
+    private BodyMeasure measure() {
+        if (bodyMeasure == null) {
+            bodyMeasure = bodyMeasurer.measure();
+            bodyMeasurer = null;
+        }
+        return bodyMeasure;
+    }
+}
@@ -1,7 +1,5 @@
 package model;
 
-import org.eclipse.jgit.revwalk.RevCommit;
-
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
@@ -15,7 +13,7 @@ public class Ticket {
     private final Release ov;
     private final Release fv;
     private final List<Release> av;
-    private final List<RevCommit> commitList;
+    private final CommitSet commits;
 
     public Ticket(String id, LocalDate creationDate, LocalDate resolutionDate, Release iv, Release ov, Release fv, List<Release> av) {
         this.id = id;
@@ -25,7 +23,7 @@ public class Ticket {
         this.ov = ov;
         this.fv = fv;
         this.av = av;
-        this.commitList = new ArrayList<>();
+        this.commits = new CommitSet();
     }
 
     public String getId() {
@@ -72,11 +70,11 @@ public class Ticket {
         this.av.add(av);
     }
 
-    public List<RevCommit> getCommitList() {
-        return commitList;
+    public CommitSet getCommits() {
+        return commits;
     }
 
-    public void addCommit(RevCommit commit){
-        this.commitList.add(commit);
+    public void addCommit(int commit){
+        this.commits.add(commit);
     }
 }
@@ -0,0 +1,9 @@
+package utils;
+
+// How the lines added and deleted in a method by a commit are measured
+public enum ChurnMode {
+    // Difference between the LOC of the new and of the old declaration (a net delta: a modified line is not counted)
+    LOC_DELTA,
+    // Lines of the diff edits that fall inside the new (added) and the old (deleted) declaration
+    EDITS
+}
@@ -1,11 +1,16 @@
 package utils;
 
 import com.github.javaparser.ParseProblemException;
-import com.github.javaparser.StaticJavaParser;
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.JavaToken;
+import com.github.javaparser.ParseResult;
+import com.github.javaparser.Range;
 import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.stmt.BlockStmt;
+import controller.MetricCalculator;
 import model.JavaMethod;
-import model.Release;
+import model.ScannedMethod;
 import org.eclipse.jgit.diff.DiffEntry;
 import org.eclipse.jgit.diff.DiffFormatter;
 import org.eclipse.jgit.diff.RawTextComparator;
@@ -14,15 +19,11 @@ import org.eclipse.jgit.lib.ObjectLoader;
 import org.eclipse.jgit.lib.ObjectReader;
 import org.eclipse.jgit.lib.Repository;
 import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
 import org.eclipse.jgit.util.io.DisabledOutputStream;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
-import java.security.MessageDigest;
-import java.text.SimpleDateFormat;
-import java.time.LocalDate;
-import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -33,26 +34,16 @@ public class GitUtils {
 
     private static final Logger LOGGER = Logger.getLogger(GitUtils.class.getName());
 
-    private GitUtils() {}
-
-    public static Release getReleaseOfCommit(RevCommit commit, List<Release> releaseList) {
+    // StaticJavaParser shares one configuration between all threads, so every thread gets its own parser
+    private static final ThreadLocal<JavaParser> PARSER = ThreadLocal.withInitial(JavaParser::new);
 
-        SimpleDateFormat formatter = new SimpleDateFormat("yyyy-MM-dd");
-        LocalDate commitDate = LocalDate.parse(formatter.format(commit.getCommitterIdent().getWhen()));
-        LocalDate lowerBoundDate = LocalDate.parse(formatter.format(new Date(0)));
-        for (Release release : releaseList) {
-            LocalDate dateOfRelease = release.getDate();
-            if (commitDate.isAfter(lowerBoundDate) && !commitDate.isAfter(dateOfRelease)) {
-                return release;
-            }
-            lowerBoundDate = dateOfRelease;
-        }
-        return null;
-    }
+    private GitUtils() {}
 
-    public static List<DiffEntry> getDiffEntries(RevCommit parent, RevCommit commit, Repository repository) throws IOException {
+    // Only the paths accepted by the filter are compared
+    public static List<DiffEntry> getDiffEntries(RevCommit parent, RevCommit commit, TreeFilter pathFilter, Repository repository) throws IOException {
         try (DiffFormatter diffFormatter = new DiffFormatter(DisabledOutputStream.INSTANCE)) {
             diffFormatter.setRepository(repository);
+            diffFormatter.setPathFilter(pathFilter);
             diffFormatter.setDiffComparator(RawTextComparator.DEFAULT);
             diffFormatter.setContext(0); // Nessuna linea di contesto, solo le differenze
             return diffFormatter.scan(parent.getTree(), commit.getTree());
@@ -63,7 +54,7 @@ public class GitUtils {
         Map<String, MethodDeclaration> methods = new HashMap<>();
         if (content == null || content.isEmpty()) return methods;
         try {
-            CompilationUnit cu = StaticJavaParser.parse(content);
+            CompilationUnit cu = parseCompilationUnit(content);
             cu.findAll(MethodDeclaration.class).forEach(md -> methods.put(JavaMethod.getSignature(md), md));
         } catch (ParseProblemException | StackOverflowError ignored) {
             // Ignored
@@ -71,8 +62,38 @@ public class GitUtils {
         return methods;
     }
 
-    public static Map<String, String> getFileContents(RevCommit commit, List<DiffEntry> diffs, boolean useOldPath, Repository repository) throws IOException {
-        Map<String, String> contents = new HashMap<>();
+    // Same methods as parseMethods (the last declaration of a signature wins), found by the lexical
+    // scanner when it can handle the file and by the parser otherwise
+    public static Map<String, ScannedMethod> scanMethods(String content) {
+        Map<String, ScannedMethod> methods = new HashMap<>();
+        if (content == null || content.isEmpty()) return methods;
+
+        List<ScannedMethod> scanned = MethodScanner.scan(content);
+        if (scanned == null) {
+            for (MethodDeclaration md : parseMethods(content).values()) {
+                Range range = md.getRange().orElseThrow();
+                methods.put(JavaMethod.getSignature(md), new ScannedMethod(JavaMethod.getSignature(md),
+                        range.begin.line, range.begin.column, range.end.line, range.end.column,
+                        () -> new ScannedMethod.BodyMeasure(calculateBodyFingerprint(md), MetricCalculator.calculateLOC(md))));
+            }
+            return methods;
+        }
+        for (ScannedMethod method : scanned) {
+            methods.put(method.getSignature(), method);
+        }
+        return methods;
+    }
+
+    public static CompilationUnit parseCompilationUnit(String content) {
+        ParseResult<CompilationUnit> result = PARSER.get().parse(content);
+        if (result.isSuccessful() && result.getResult().isPresent()) {
+            return result.getResult().get();
+        }
+        throw new ParseProblemException(result.getProblems());
+    }
+
+    public static Map<String, byte[]> getFileContents(RevCommit commit, List<DiffEntry> diffs, boolean useOldPath, Repository repository) throws IOException {
+        Map<String, byte[]> contents = new HashMap<>();
         try (ObjectReader reader = repository.newObjectReader()) {
             for (DiffEntry diff : diffs) {
                 String path = useOldPath ? diff.getOldPath() : diff.getNewPath();
@@ -84,7 +105,7 @@ public class GitUtils {
                     ObjectLoader loader = reader.open(id);
                     ByteArrayOutputStream output = new ByteArrayOutputStream();
                     loader.copyTo(output);
-                    contents.put(path, output.toString());
+                    contents.put(path, output.toByteArray());
                 } catch (org.eclipse.jgit.errors.MissingObjectException e) {
                     LOGGER.log(Level.INFO, "--- Missing object {0} for path {1} in commit {2} ---", new Object[]{id, path, commit.getName()});
                 }
@@ -93,40 +114,31 @@ public class GitUtils {
         return contents;
     }
 
-    public static String calculateBodyHash(MethodDeclaration md) throws PipelineExecutionException {
-        if (md == null) return null;
-        String normalizedBody = normalizeMethodBody(md);
-        if (normalizedBody.isEmpty()) return "EMPTY_BODY_HASH"; // O un altro placeholder
-        try {
-            MessageDigest digest = MessageDigest.getInstance("SHA-256");
-            byte[] encodedhash = digest.digest(normalizedBody.getBytes(StandardCharsets.UTF_8));
-            return bytesToHex(encodedhash);
-        } catch (java.security.NoSuchAlgorithmException e) {
-            throw new PipelineExecutionException("SHA-256 Hashing error", e);
+    // Fingerprint of the tokens of the body, comments and whitespace excluded
+    public static long calculateBodyFingerprint(MethodDeclaration md) {
+        if (md.getBody().isEmpty()) {
+            return TokenFingerprint.ABSENT_BODY;
         }
-    }
 
-    public static String bytesToHex(byte[] hash) {
-        StringBuilder hexString = new StringBuilder(2 * hash.length);
-        for (byte b : hash) {
-            String hex = Integer.toHexString(0xff & b);
-            if (hex.length() == 1) {
-                hexString.append('0');
-            }
-            hexString.append(hex);
+        BlockStmt body = md.getBody().get();
+        TokenFingerprint fingerprint = new TokenFingerprint();
+        if (body.getTokenRange().isEmpty()) {
+            fingerprint.addUnit(body.toString()); // Only for nodes built without tokens
+            return fingerprint.get();
         }
-        return hexString.toString();
-    }
 
-    public static String normalizeMethodBody(MethodDeclaration md) {
-        if (md == null || md.getBody().isEmpty()) {
-            return "";
+        for (JavaToken token : body.getTokenRange().get()) {
+            JavaToken.Category category = token.getCategory();
+            if (category.isWhitespaceOrComment()) {
+                continue;
+            }
+            if (category.isOperator() || category.isSeparator()) {
+                fingerprint.addPunctuation(token.getText());
+            } else {
+                fingerprint.addUnit(token.getText());
+            }
         }
-
-        String body = md.getBody().get().toString();
-        body = body.replaceAll("//.*|/\\*(?s).*?\\*/", ""); // Remove comments
-        body = body.replaceAll("\\s+", " "); // Replace multiple blank space with a single one
-        return body.trim();
+        return fingerprint.get();
     }
 
 }
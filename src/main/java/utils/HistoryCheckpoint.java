@@ -0,0 +1,124 @@
+package utils;
+
+import model.MethodChange;
+import org.eclipse.jgit.lib.AnyObjectId;
+import org.eclipse.jgit.lib.ObjectId;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// Checkpoint of the method history pass: the methods changed by every processed commit, with their
+// churn. It only depends on the git history, so a rerun diffs and parses only the commits that are
+// not in the checkpoint, and rebuilds the per-method metrics and labels by replaying it against the
+// current releases and tickets. The changes also depend on the configuration of the pass (e.g. the
+// path filter), which is saved with them: a checkpoint made with another configuration is discarded
+public class HistoryCheckpoint {
+
+    private static final Logger LOGGER = Logger.getLogger(HistoryCheckpoint.class.getName());
+
+    // Bump when the way method changes are detected or measured changes, so old checkpoints are discarded
+    private static final int FORMAT_VERSION = 5;
+
+    private final Path checkpointFile;
+    private final String configuration;
+    private final Map<ObjectId, List<MethodChange>> changesByCommit;
+    private final Set<ObjectId> visitedCommits;
+    private boolean dirty;
+
+    public HistoryCheckpoint(Path checkpointFile, String configuration) {
+        this.checkpointFile = checkpointFile;
+        this.configuration = configuration;
+        this.changesByCommit = new HashMap<>();
+        this.visitedCommits = new HashSet<>();
+        this.dirty = false;
+    }
+
+    // Returns null if the commit has never been processed
+    public List<MethodChange> get(AnyObjectId commitId) {
+        List<MethodChange> changes = changesByCommit.get(commitId);
+        if (changes != null) {
+            visitedCommits.add(commitId.copy());
+        }
+        return changes;
+    }
+
+    public void put(AnyObjectId commitId, List<MethodChange> changes) {
+        ObjectId id = commitId.copy();
+        changesByCommit.put(id, changes);
+        visitedCommits.add(id);
+        dirty = true;
+    }
+
+    public int size() {
+        return changesByCommit.size();
+    }
+
+    public void load() {
+        if (!Files.exists(checkpointFile)) {
+            return;
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(checkpointFile)))) {
+            if (in.readInt() != FORMAT_VERSION) {
+                LOGGER.log(Level.INFO, "History checkpoint {0} has an old format, the history will be processed again.", checkpointFile);
+                return;
+            }
+            if (!in.readUTF().equals(configuration)) {
+                LOGGER.log(Level.INFO, "History checkpoint {0} was made with another configuration, the history will be processed again.", checkpointFile);
+                return;
+            }
+
+            // The same methods appear in many commits
+            Map<String, String> fqnPool = new HashMap<>();
+            int numCommits = in.readInt();
+            byte[] rawId = new byte[20];
+            for (int i = 0; i < numCommits; i++) {
+                in.readFully(rawId);
+                int numChanges = in.readInt();
+                List<MethodChange> changes = new ArrayList<>(numChanges);
+                for (int j = 0; j < numChanges; j++) {
+                    String fqn = fqnPool.computeIfAbsent(in.readUTF(), k -> k);
+                    changes.add(new MethodChange(fqn, in.readInt(), in.readInt()));
+                }
+                changesByCommit.put(ObjectId.fromRaw(rawId), changes);
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "History checkpoint {0} is unreadable, the history will be processed again.", checkpointFile);
+            changesByCommit.clear();
+        }
+    }
+
+    // Saves the commits used in this run; commits no longer in the history are dropped
+    public void save() throws IOException {
+        if (!dirty && visitedCommits.size() == changesByCommit.size()) {
+            return;
+        }
+
+        changesByCommit.keySet().retainAll(visitedCommits);
+        Files.createDirectories(checkpointFile.getParent());
+        Path tmpFile = checkpointFile.resolveSibling(checkpointFile.getFileName() + ".tmp");
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmpFile)))) {
+            out.writeInt(FORMAT_VERSION);
+            out.writeUTF(configuration);
+            out.writeInt(changesByCommit.size());
+            for (Map.Entry<ObjectId, List<MethodChange>> entry : changesByCommit.entrySet()) {
+                entry.getKey().copyRawTo(out);
+                out.writeInt(entry.getValue().size());
+                for (MethodChange change : entry.getValue()) {
+                    out.writeUTF(change.getFullyQualifiedName());
+                    out.writeInt(change.getStmtAdded());
+                    out.writeInt(change.getStmtDeleted());
+                }
+            }
+        }
+
+        Files.move(tmpFile, checkpointFile, StandardCopyOption.REPLACE_EXISTING);
+        dirty = false;
+    }
+}
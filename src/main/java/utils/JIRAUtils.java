@@ -1,101 +1,61 @@
 package utils;
 
 import controller.Proportion;
+import controller.ProportionEvaluation;
 import model.Release;
+import model.ReleaseIndex;
 import model.Ticket;
-import org.json.JSONArray;
-import org.json.JSONException;
-import org.json.JSONObject;
 
-import java.io.*;
+import java.io.IOException;
 import java.net.URISyntaxException;
-import java.net.URL;
-import java.nio.charset.StandardCharsets;
-import java.time.LocalDate;
 import java.util.*;
 
 public class JIRAUtils {
     private JIRAUtils() {}
 
-    public static JSONObject readJsonFromUrl(String url) throws IOException, JSONException {
-        InputStream is = new URL(url).openStream();
-        try {
-            BufferedReader rd = new BufferedReader(new InputStreamReader(is, StandardCharsets.UTF_8));
-            String jsonText = readAll(rd);
-            return new JSONObject(jsonText);
-        } finally {
-            is.close();
-        }
-    }
-
-    private static String readAll(Reader rd) throws IOException {
-        StringBuilder sb = new StringBuilder();
-        int cp;
-        while ((cp = rd.read()) != -1) {
-            sb.append((char) cp);
-        }
-        return sb.toString();
-    }
-
-    public static Release getReleaseAfterOrEqualDate(LocalDate specificDate, List<Release> releasesList) {
-
-        //sorting the releases by their date
-        releasesList.sort(Comparator.comparing(Release::getDate));
-
-        //the first release which has a date after or equal to the one given is returned
-        for (Release release : releasesList) {
-            if (!release.getDate().isBefore(specificDate)) {
-                return release;
-            }
-        }
-        return null;
-    }
-
-    public static List<Release> returnAffectedVersions(JSONArray affectedVersionsArray, List<Release> releasesList) {
+    public static List<Release> returnAffectedVersions(List<String> affectedVersionNames, ReleaseIndex releaseIndex) {
         List<Release> existingAffectedVersions = new ArrayList<>();
 
-        for (int i = 0; i < affectedVersionsArray.length(); i++) {
-            String affectedVersionName = affectedVersionsArray.getJSONObject(i).get("name").toString();
-
-            //iterating through the releases to find the corresponding one
-            for (Release release : releasesList) {
-                if (Objects.equals(affectedVersionName, release.getName())) {
-                    existingAffectedVersions.add(release);
-                    break;
-                }
+        for (String affectedVersionName : affectedVersionNames) {
+            //looking up the corresponding release, versions unknown to the project are ignored
+            Release release = releaseIndex.getByName(affectedVersionName);
+            if (release != null) {
+                existingAffectedVersions.add(release);
             }
         }
         existingAffectedVersions.sort(Comparator.comparing(Release::getDate));
         return existingAffectedVersions;
     }
 
-    public static List<Ticket> addIVandAV(List<Ticket> ticketsList, List<Release> releasesList, String projectName) throws IOException, URISyntaxException {
+    public static List<Ticket> addIVandAV(List<Ticket> ticketsList, ReleaseIndex releaseIndex, String projectName) throws IOException, URISyntaxException {
         List<Ticket> finalTicketsList = new ArrayList<>();
 
         Proportion proportion = new Proportion(projectName);
+        ProportionEvaluation evaluation = PipelineSettings.isProportionEvaluation() ? new ProportionEvaluation() : null;
 
         for(Ticket ticket: ticketsList){
             if(ticket.getAv().isEmpty()){
-                proportion.fixTicketWithProportion(ticket, releasesList);
-                completeAV(ticket, releasesList);
+                proportion.fixTicketWithProportion(ticket, releaseIndex);
+                completeAV(ticket, releaseIndex);
             }else{
+                if(evaluation != null) evaluation.addTicket(ticket);
                 proportion.addProportion(ticket);
-                completeAV(ticket, releasesList);
+                completeAV(ticket, releaseIndex);
             }
             finalTicketsList.add(ticket);
         }
 
+        if(evaluation != null) evaluation.report(projectName);
+
         return finalTicketsList;
     }
 
-    public static void completeAV(Ticket ticket, List<Release> releases){
+    public static void completeAV(Ticket ticket, ReleaseIndex releaseIndex){
         int iv = ticket.getIv().getId();
         int fv = ticket.getFv().getId();
 
-        for(Release release : releases){
-            if(release.getId() > iv && release.getId() < fv ){
-                ticket.addAv(release);
-            }
+        for(Release release : releaseIndex.getReleasesBetween(iv, fv)){
+            ticket.addAv(release);
         }
     }
 
@@ -0,0 +1,282 @@
+package utils;
+
+import com.google.gson.stream.JsonReader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// Client of the JIRA REST API. Responses are first looked up in the response cache and are read as a
+// JSON stream. All the requests share one HttpClient; I/O errors and 429/5xx responses are retried
+// with exponential backoff. The pages of a search after the first one are fetched concurrently, at
+// most maxConcurrentRequests at a time, and returned in order
+public class JiraClient {
+    private static final Logger LOGGER = Logger.getLogger(JiraClient.class.getName());
+
+    private static final int MAX_ATTEMPTS = 4;
+    private static final long INITIAL_BACKOFF_MILLIS = 500;
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(60);
+
+    private final HttpClient httpClient;
+    private final String baseUrl;
+    private final int maxConcurrentRequests;
+    private final JiraResponseCache responseCache;
+
+    public JiraClient(String baseUrl, int maxConcurrentRequests, JiraResponseCache responseCache) {
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(REQUEST_TIMEOUT)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+        this.baseUrl = baseUrl;
+        this.maxConcurrentRequests = Math.max(1, maxConcurrentRequests);
+        this.responseCache = responseCache;
+    }
+
+    public static JiraClient fromSettings() {
+        return new JiraClient(PipelineSettings.getJiraBaseUrl(), PipelineSettings.getJiraConcurrency(), JiraResponseCache.fromSettings());
+    }
+
+    // Reads a response (or one issue of a search page) from the JSON stream
+    public interface ResponseReader<T> {
+        T read(JsonReader reader) throws IOException;
+    }
+
+    // path is relative to the base URL, e.g. "/rest/api/latest/project/AVRO". The body goes from the
+    // network to the cache file and is parsed from there with a pull parser, never held as a whole
+    public <T> T get(String path, ResponseReader<T> responseReader) throws IOException {
+        return get(path, responseReader, true);
+    }
+
+    // Without reuseRecorded the server is asked again even if the response is recorded (not in offline mode)
+    private <T> T get(String path, ResponseReader<T> responseReader, boolean reuseRecorded) throws IOException {
+        String url = baseUrl + path;
+        Optional<Path> cachedFile = reuseRecorded || responseCache.isOffline() ? responseCache.find(url) : Optional.empty();
+        if (cachedFile.isPresent()) {
+            return readFile(cachedFile.get(), responseReader);
+        }
+        if (responseCache.isOffline()) {
+            throw new IOException("JIRA request " + url + " is not in the response cache (offline mode)");
+        }
+
+        Path file = fetch(url);
+        try {
+            return readFile(file, responseReader);
+        } catch (IOException | RuntimeException e) {
+            responseCache.remove(url); // Only readable responses stay recorded
+            throw e;
+        }
+    }
+
+    private <T> T readFile(Path file, ResponseReader<T> responseReader) throws IOException {
+        try (JsonReader reader = new JsonReader(responseCache.openBody(file))) {
+            return responseReader.read(reader);
+        }
+    }
+
+    // Returns the file the body was recorded to
+    private Path fetch(String url) throws IOException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+                .timeout(REQUEST_TIMEOUT)
+                .header("Accept", "application/json")
+                .GET()
+                .build();
+
+        long backoffMillis = INITIAL_BACKOFF_MILLIS;
+        for (int attempt = 1; ; attempt++) {
+            int status;
+            long retryAfterMillis;
+            try {
+                HttpResponse<InputStream> response = httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
+                try (InputStream body = response.body()) {
+                    status = response.statusCode();
+                    if (status == 200) {
+                        return responseCache.record(url, body);
+                    }
+                    retryAfterMillis = retryAfterMillis(response);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for " + request.uri());
+            } catch (IOException e) {
+                if (attempt == MAX_ATTEMPTS) {
+                    throw e;
+                }
+                LOGGER.log(Level.WARNING, "JIRA request failed ({0}), retrying in {1} ms", new Object[]{e.getMessage(), backoffMillis});
+                sleep(backoffMillis);
+                backoffMillis *= 2;
+                continue;
+            }
+
+            if (!isRetryable(status) || attempt == MAX_ATTEMPTS) {
+                throw new IOException("JIRA request " + request.uri() + " failed with status " + status);
+            }
+            long delayMillis = Math.max(backoffMillis, retryAfterMillis);
+            LOGGER.log(Level.WARNING, "JIRA request failed with status {0}, retrying in {1} ms", new Object[]{status, delayMillis});
+            sleep(delayMillis);
+            backoffMillis *= 2;
+        }
+    }
+
+    private static class SearchPage<T> {
+        int total;
+        int issueCount;
+        final List<T> items = new ArrayList<>();
+    }
+
+    // What the issue reader returns for the issues of a search, in the order of the results (null
+    // items are dropped). The first page gives the total and the page size actually used by the
+    // server (it may cap maxResults); the other pages are fetched concurrently. If the pages do not
+    // add up to the total (a short page, or issues added or removed meanwhile) the search is walked
+    // again one page at a time. The recorded pages of a search expire together: when the first page is
+    // asked to the server again, so are the others, which could otherwise come from a different total
+    public <T> List<T> searchAll(String searchPath, int pageSize, ResponseReader<T> issueReader) throws IOException {
+        boolean reuseRecordedPages = responseCache.find(baseUrl + searchPagePath(searchPath, 0, pageSize)).isPresent();
+        SearchPage<T> firstPage = getSearchPage(searchPath, 0, pageSize, issueReader, reuseRecordedPages);
+        List<T> items = new ArrayList<>(firstPage.items);
+
+        int serverPageSize = firstPage.issueCount;
+        int total = firstPage.total;
+        if (serverPageSize == 0 || serverPageSize >= total) {
+            return items;
+        }
+
+        int remainingPages = (total - 1) / serverPageSize;
+        int fetchedIssues = firstPage.issueCount;
+        // Totals of the later pages that differ from the one of the first page
+        Set<Integer> changedTotals = new TreeSet<>();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(maxConcurrentRequests, remainingPages));
+        try {
+            List<Future<SearchPage<T>>> pendingPages = new ArrayList<>();
+            for (int startAt = serverPageSize; startAt < total; startAt += serverPageSize) {
+                int pageStart = startAt;
+                pendingPages.add(executor.submit(() -> getSearchPage(searchPath, pageStart, serverPageSize, issueReader, reuseRecordedPages)));
+            }
+            for (Future<SearchPage<T>> pendingPage : pendingPages) {
+                SearchPage<T> page = awaitPage(pendingPage);
+                items.addAll(page.items);
+                fetchedIssues += page.issueCount;
+                if (page.total != total) {
+                    changedTotals.add(page.total);
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        if (changedTotals.isEmpty() && fetchedIssues == total) {
+            return items;
+        }
+        if (!changedTotals.isEmpty()) {
+            LOGGER.log(Level.WARNING, "JIRA search total changed from {0} on the first page to {1} on the later pages, fetching the pages again sequentially.",
+                    new Object[]{total, changedTotals});
+        } else {
+            LOGGER.log(Level.WARNING, "JIRA search pages returned {0} issues instead of {1}, fetching them again sequentially.",
+                    new Object[]{fetchedIssues, total});
+        }
+        return searchSequentially(searchPath, pageSize, issueReader);
+    }
+
+    // Each page starts after the issues actually returned by the previous one; the responses are
+    // asked again to the server, since the recorded ones do not add up
+    private <T> List<T> searchSequentially(String searchPath, int pageSize, ResponseReader<T> issueReader) throws IOException {
+        List<T> items = new ArrayList<>();
+        int startAt = 0;
+        int total;
+        do {
+            SearchPage<T> page = getSearchPage(searchPath, startAt, pageSize, issueReader, false);
+            items.addAll(page.items);
+            total = page.total;
+            if (page.issueCount == 0) {
+                break;
+            }
+            startAt += page.issueCount;
+        } while (startAt < total);
+        return items;
+    }
+
+    // Only "total" and "issues" are read, the other fields are skipped
+    private <T> SearchPage<T> getSearchPage(String searchPath, int startAt, int maxResults, ResponseReader<T> issueReader,
+                                            boolean reuseRecorded) throws IOException {
+        return get(searchPagePath(searchPath, startAt, maxResults), reader -> {
+            SearchPage<T> page = new SearchPage<>();
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+                if (name.equals("total")) {
+                    page.total = reader.nextInt();
+                } else if (name.equals("issues")) {
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        page.issueCount++;
+                        T item = issueReader.read(reader);
+                        if (item != null) {
+                            page.items.add(item);
+                        }
+                    }
+                    reader.endArray();
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+            return page;
+        }, reuseRecorded);
+    }
+
+    private static String searchPagePath(String searchPath, int startAt, int maxResults) {
+        return searchPath + "&startAt=" + startAt + "&maxResults=" + maxResults;
+    }
+
+    private static <T> SearchPage<T> awaitPage(Future<SearchPage<T>> page) throws IOException {
+        try {
+            return page.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while fetching the JIRA search pages");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException("Failed to fetch a JIRA search page", e.getCause());
+        }
+    }
+
+    private static boolean isRetryable(int status) {
+        return status == 429 || status >= 500;
+    }
+
+    // Retry-After in seconds, 0 if absent or not a number
+    private static long retryAfterMillis(HttpResponse<?> response) {
+        try {
+            return response.headers().firstValue("Retry-After").map(value -> Long.parseLong(value.trim()) * 1000).orElse(0L);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static void sleep(long millis) throws InterruptedIOException {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting to retry a JIRA request");
+        }
+    }
+}
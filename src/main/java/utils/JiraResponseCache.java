@@ -0,0 +1,145 @@
+package utils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Recorded JIRA responses, one file per request URL (named after its SHA-256). The first line of a file
+// is the time the response was fetched, in epoch milliseconds; the JSON body follows. A response this
+// cache recorded is always reused; one of an earlier run only while the time stored in it is younger
+// than the TTL, whatever the file system says of the file. In offline mode a response is reused whatever
+// its age, and a request that was never recorded fails instead of reaching the server. The pages of a
+// search expire with their first page (JiraClient.searchAll)
+public class JiraResponseCache {
+
+    private final Path directory;
+    private final Duration timeToLive;
+    private final boolean offline;
+    private final Clock clock;
+    // So a TTL of 0 does not ask the server again for what this run has just fetched
+    private final Set<String> recordedUrls = ConcurrentHashMap.newKeySet();
+
+    public JiraResponseCache(Path directory, Duration timeToLive, boolean offline) {
+        this(directory, timeToLive, offline, Clock.systemUTC());
+    }
+
+    public JiraResponseCache(Path directory, Duration timeToLive, boolean offline, Clock clock) {
+        this.directory = directory;
+        this.timeToLive = timeToLive;
+        this.offline = offline;
+        this.clock = clock;
+    }
+
+    private static class Holder {
+        static final JiraResponseCache INSTANCE = new JiraResponseCache(Paths.get(PipelineSettings.getJiraCacheDir()),
+                Duration.ofHours(PipelineSettings.getJiraCacheTtlHours()), PipelineSettings.isJiraOffline());
+    }
+
+    // Shared by the clients of the run, e.g. the extraction and the cold-start proportions
+    public static JiraResponseCache fromSettings() {
+        return Holder.INSTANCE;
+    }
+
+    public boolean isOffline() {
+        return offline;
+    }
+
+    // File of the recorded response, if there is one that can be reused. A file without a readable
+    // fetch time (e.g. recorded before the time was stored) is never reused
+    public Optional<Path> find(String url) throws IOException {
+        Path file = fileOf(url);
+        if (!Files.isRegularFile(file)) {
+            return Optional.empty();
+        }
+        if (recordedUrls.contains(url)) {
+            return Optional.of(file);
+        }
+
+        long fetchedAt;
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            fetchedAt = readFetchTime(reader);
+        }
+        if (fetchedAt < 0) {
+            return Optional.empty();
+        }
+        if (!offline) {
+            // A fetch time ahead of the clock (the clock went back) is not trusted either
+            long ageMillis = clock.millis() - fetchedAt;
+            if (ageMillis < 0 || ageMillis >= timeToLive.toMillis()) {
+                return Optional.empty();
+            }
+        }
+        return Optional.of(file);
+    }
+
+    // Reader of the JSON body of a file returned by find or record
+    public BufferedReader openBody(Path file) throws IOException {
+        BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8);
+        try {
+            if (readFetchTime(reader) < 0) {
+                throw new IOException("Recorded JIRA response " + file + " has no fetch time");
+            }
+            return reader;
+        } catch (IOException | RuntimeException e) {
+            reader.close();
+            throw e;
+        }
+    }
+
+    // The body is streamed to a temporary file and moved, so a concurrent or interrupted run never
+    // reads half a response
+    public Path record(String url, InputStream body) throws IOException {
+        Files.createDirectories(directory);
+        Path file = fileOf(url);
+        Path temporary = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+        try {
+            try (OutputStream out = Files.newOutputStream(temporary)) {
+                out.write((clock.millis() + "\n").getBytes(StandardCharsets.UTF_8));
+                body.transferTo(out);
+            }
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+        recordedUrls.add(url);
+        return file;
+    }
+
+    public void remove(String url) throws IOException {
+        recordedUrls.remove(url);
+        Files.deleteIfExists(fileOf(url));
+    }
+
+    // -1 if the first line is not a fetch time
+    private static long readFetchTime(BufferedReader reader) throws IOException {
+        String line = reader.readLine();
+        try {
+            return line == null ? -1 : Long.parseLong(line.trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private Path fileOf(String url) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(url.getBytes(StandardCharsets.UTF_8));
+            StringBuilder name = new StringBuilder(hash.length * 2 + 5);
+            for (byte b : hash) {
+                name.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+            }
+            return directory.resolve(name.append(".json").toString());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e); // Required on every JVM
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package utils;
+
+import model.MethodSnapshot;
+import org.eclipse.jgit.lib.ObjectId;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// On-disk cache of parsed methods addressed by blob id: a file whose content did not
+// change between two releases (or two runs) has the same blob id and is never parsed again
+public class MethodCache {
+
+    private static final Logger LOGGER = Logger.getLogger(MethodCache.class.getName());
+
+    // Bump when the content of a MethodSnapshot changes meaning, so old cache files are discarded
+    private static final int FORMAT_VERSION = 3;
+
+    private final Path cacheFile;
+    private final Map<ObjectId, List<MethodSnapshot>> snapshotsByBlob;
+    private boolean dirty;
+
+    public MethodCache(Path cacheFile) {
+        this.cacheFile = cacheFile;
+        this.snapshotsByBlob = new ConcurrentHashMap<>();
+        this.dirty = false;
+    }
+
+    public List<MethodSnapshot> get(ObjectId blobId) {
+        return snapshotsByBlob.get(blobId);
+    }
+
+    public void put(ObjectId blobId, List<MethodSnapshot> snapshots) {
+        snapshotsByBlob.put(blobId.copy(), Collections.unmodifiableList(snapshots));
+        dirty = true;
+    }
+
+    public int size() {
+        return snapshotsByBlob.size();
+    }
+
+    public void load() {
+        if (!Files.exists(cacheFile)) {
+            return;
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(cacheFile)))) {
+            if (in.readInt() != FORMAT_VERSION) {
+                LOGGER.log(Level.INFO, "Method cache {0} has an old format, it will be rebuilt.", cacheFile);
+                return;
+            }
+
+            int numBlobs = in.readInt();
+            byte[] rawId = new byte[20];
+            for (int i = 0; i < numBlobs; i++) {
+                in.readFully(rawId);
+                int numMethods = in.readInt();
+                List<MethodSnapshot> snapshots = new ArrayList<>(numMethods);
+                for (int j = 0; j < numMethods; j++) {
+                    snapshots.add(new MethodSnapshot(in.readUTF(), in.readLong(),
+                            in.readInt(), in.readInt(), in.readInt(), in.readInt(), in.readInt()));
+                }
+                snapshotsByBlob.put(ObjectId.fromRaw(rawId), Collections.unmodifiableList(snapshots));
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Method cache {0} is unreadable, it will be rebuilt.", cacheFile);
+            snapshotsByBlob.clear();
+        }
+    }
+
+    public void save() throws IOException {
+        if (!dirty) {
+            return;
+        }
+
+        Files.createDirectories(cacheFile.getParent());
+        Path tmpFile = cacheFile.resolveSibling(cacheFile.getFileName() + ".tmp");
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmpFile)))) {
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(snapshotsByBlob.size());
+            for (Map.Entry<ObjectId, List<MethodSnapshot>> entry : snapshotsByBlob.entrySet()) {
+                entry.getKey().copyRawTo(out);
+                out.writeInt(entry.getValue().size());
+                for (MethodSnapshot snapshot : entry.getValue()) {
+                    out.writeUTF(snapshot.getSignature());
+                    out.writeLong(snapshot.getBodyFingerprint());
+                    out.writeInt(snapshot.getLoc());
+                    out.writeInt(snapshot.getNumParameters());
+                    out.writeInt(snapshot.getNumberOfBranches());
+                    out.writeInt(snapshot.getNestingDepth());
+                    out.writeInt(snapshot.getNumberOfCodeSmells());
+                }
+            }
+        }
+
+        Files.move(tmpFile, cacheFile, StandardCopyOption.REPLACE_EXISTING);
+        dirty = false;
+    }
+}
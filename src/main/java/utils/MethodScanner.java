@@ -0,0 +1,928 @@
+package utils;
+
+import model.ScannedMethod;
+
+import java.util.*;
+
+// Lexical scanner that finds the method declarations of a Java file without building an AST: it
+// tokenizes the file, follows the nesting of type bodies (classes, interfaces, enums, anonymous and
+// local classes) and reads the header of every member. It gives the same signatures, ranges, order and
+// body fingerprints as the parser (findAll of MethodDeclaration). When the source uses something it
+// does not handle (unicode escapes, language features the parser rejects, malformed code), scan
+// returns null and the caller parses the file
+public class MethodScanner {
+
+    private static final int WORD = 0;
+    private static final int LITERAL = 1;
+    private static final int PUNCTUATION = 2;
+
+    private static final String PUNCTUATION_CHARS = "(){}[];,.@=><!~?:+-*/&|^%";
+
+    private static final Set<String> KEYWORDS = new HashSet<>(Arrays.asList(
+            "abstract", "assert", "boolean", "break", "byte", "case", "catch", "char", "class", "const",
+            "continue", "default", "do", "double", "else", "enum", "extends", "final", "finally", "float",
+            "for", "goto", "if", "implements", "import", "instanceof", "int", "interface", "long", "native",
+            "new", "package", "private", "protected", "public", "return", "short", "static", "strictfp",
+            "super", "switch", "synchronized", "this", "throw", "throws", "transient", "try", "void",
+            "volatile", "while", "true", "false", "null"));
+
+    private static final Set<String> MODIFIERS = new HashSet<>(Arrays.asList(
+            "public", "protected", "private", "static", "abstract", "final", "native", "synchronized",
+            "transient", "volatile", "strictfp", "default"));
+
+    private static final Set<String> PRIMITIVE_TYPES = new HashSet<>(Arrays.asList(
+            "boolean", "byte", "char", "short", "int", "long", "float", "double"));
+
+    private enum TypeKind { CLASS, ENUM, ANNOTATION }
+
+    // Signals a source the scanner does not handle
+    private static class UnsupportedSourceException extends Exception {
+        private static final long serialVersionUID = 1L;
+
+        UnsupportedSourceException() {
+            super(null, null, false, false);
+        }
+    }
+
+    private final String source;
+    private int[] kinds;
+    private int[] starts;
+    private int[] ends;
+    private int[] lines;
+    private int[] columns;
+    private int count;
+
+    private List<ScannedMethod> methods;
+
+    private MethodScanner(String source) {
+        this.source = source;
+        int capacity = Math.max(16, source.length() / 4);
+        this.kinds = new int[capacity];
+        this.starts = new int[capacity];
+        this.ends = new int[capacity];
+        this.lines = new int[capacity];
+        this.columns = new int[capacity];
+        this.count = 0;
+        this.methods = new ArrayList<>();
+    }
+
+    // The methods in the order of the parser, or null if the file must be parsed
+    public static List<ScannedMethod> scan(String content) {
+        if (!isScannable(content)) {
+            return null;
+        }
+
+        MethodScanner scanner = new MethodScanner(content);
+        try {
+            scanner.tokenize();
+            scanner.scanCompilationUnit();
+            return scanner.methods;
+        } catch (UnsupportedSourceException e) {
+            return null;
+        }
+    }
+
+    // Unicode escapes are translated before lexing, and surrogate pairs change the columns: both are left to the parser
+    private static boolean isScannable(String content) {
+        for (int i = 0; i < content.length(); i++) {
+            char c = content.charAt(i);
+            if (Character.isSurrogate(c) || (c == '\\' && i + 1 < content.length() && content.charAt(i + 1) == 'u')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // ---- Lexer ----
+
+    private void tokenize() throws UnsupportedSourceException {
+        int length = source.length();
+        int pos = 0;
+        int line = 1;
+        int column = 1;
+
+        while (pos < length) {
+            char c = source.charAt(pos);
+
+            if (c == '\n' || c == '\r') {
+                pos += (c == '\r' && pos + 1 < length && source.charAt(pos + 1) == '\n') ? 2 : 1;
+                line++;
+                column = 1;
+                continue;
+            }
+            if (c == ' ' || c == '\t' || c == '\f') {
+                pos++;
+                column++;
+                continue;
+            }
+            if (c == '/' && pos + 1 < length && source.charAt(pos + 1) == '/') {
+                while (pos < length && source.charAt(pos) != '\n' && source.charAt(pos) != '\r') {
+                    pos++;
+                }
+                continue;
+            }
+            if (c == '/' && pos + 1 < length && source.charAt(pos + 1) == '*') {
+                pos += 2;
+                column += 2;
+                while (!source.startsWith("*/", pos)) {
+                    if (pos >= length) {
+                        throw new UnsupportedSourceException();
+                    }
+                    char inComment = source.charAt(pos);
+                    if (inComment == '\n' || inComment == '\r') {
+                        pos += (inComment == '\r' && pos + 1 < length && source.charAt(pos + 1) == '\n') ? 2 : 1;
+                        line++;
+                        column = 1;
+                    } else {
+                        pos++;
+                        column++;
+                    }
+                }
+                pos += 2;
+                column += 2;
+                continue;
+            }
+
+            int start = pos;
+            int kind;
+            if (c == '"' || c == '\'') {
+                pos = scanQuoted(pos, c);
+                kind = LITERAL;
+            } else if (isDigit(c) || (c == '.' && pos + 1 < length && isDigit(source.charAt(pos + 1)))) {
+                pos = scanNumber(pos);
+                kind = LITERAL;
+            } else if (Character.isJavaIdentifierStart(c)) {
+                pos++;
+                while (pos < length && Character.isJavaIdentifierPart(source.charAt(pos))) {
+                    pos++;
+                }
+                kind = WORD;
+            } else if (PUNCTUATION_CHARS.indexOf(c) >= 0) {
+                pos++;
+                kind = PUNCTUATION;
+            } else {
+                throw new UnsupportedSourceException();
+            }
+
+            addToken(kind, start, pos, line, column);
+            column += pos - start;
+        }
+    }
+
+    private int scanQuoted(int pos, char quote) throws UnsupportedSourceException {
+        if (quote == '"' && source.startsWith("\"\"\"", pos)) {
+            throw new UnsupportedSourceException(); // Text blocks
+        }
+        int i = pos + 1;
+        while (true) {
+            if (i >= source.length()) {
+                throw new UnsupportedSourceException();
+            }
+            char c = source.charAt(i);
+            if (c == '\\') {
+                i += 2;
+            } else if (c == quote) {
+                return i + 1;
+            } else if (c == '\n' || c == '\r') {
+                throw new UnsupportedSourceException();
+            } else {
+                i++;
+            }
+        }
+    }
+
+    private int scanNumber(int pos) {
+        int i = pos;
+        if (source.startsWith("0x", i) || source.startsWith("0X", i)) {
+            i += 2;
+            while (i < source.length() && (Character.digit(source.charAt(i), 16) >= 0 || source.charAt(i) == '_' || source.charAt(i) == '.')) {
+                i++;
+            }
+            if (i < source.length() && (source.charAt(i) == 'p' || source.charAt(i) == 'P')) {
+                i = scanExponent(i);
+            }
+        } else if (source.startsWith("0b", i) || source.startsWith("0B", i)) {
+            i += 2;
+            while (i < source.length() && (source.charAt(i) == '0' || source.charAt(i) == '1' || source.charAt(i) == '_')) {
+                i++;
+            }
+        } else {
+            i = scanDigits(i);
+            if (i < source.length() && source.charAt(i) == '.') {
+                i = scanDigits(i + 1);
+            }
+            if (i < source.length() && (source.charAt(i) == 'e' || source.charAt(i) == 'E')) {
+                i = scanExponent(i);
+            }
+        }
+        if (i < source.length() && "lLfFdD".indexOf(source.charAt(i)) >= 0) {
+            i++;
+        }
+        return i;
+    }
+
+    private int scanExponent(int i) {
+        i++;
+        if (i < source.length() && (source.charAt(i) == '+' || source.charAt(i) == '-')) {
+            i++;
+        }
+        return scanDigits(i);
+    }
+
+    private int scanDigits(int i) {
+        while (i < source.length() && (isDigit(source.charAt(i)) || source.charAt(i) == '_')) {
+            i++;
+        }
+        return i;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private void addToken(int kind, int start, int end, int line, int column) {
+        if (count == kinds.length) {
+            int capacity = count * 2;
+            kinds = Arrays.copyOf(kinds, capacity);
+            starts = Arrays.copyOf(starts, capacity);
+            ends = Arrays.copyOf(ends, capacity);
+            lines = Arrays.copyOf(lines, capacity);
+            columns = Arrays.copyOf(columns, capacity);
+        }
+        kinds[count] = kind;
+        starts[count] = start;
+        ends[count] = end;
+        lines[count] = line;
+        columns[count] = column;
+        count++;
+    }
+
+    // ---- Token helpers ----
+
+    private void require(int i) throws UnsupportedSourceException {
+        if (i >= count) {
+            throw new UnsupportedSourceException();
+        }
+    }
+
+    private boolean isPunctuation(int i, char c) {
+        return i >= 0 && i < count && kinds[i] == PUNCTUATION && source.charAt(starts[i]) == c;
+    }
+
+    private boolean isWord(int i) {
+        return i >= 0 && i < count && kinds[i] == WORD;
+    }
+
+    private boolean isWord(int i, String word) {
+        return isWord(i) && ends[i] - starts[i] == word.length() && source.startsWith(word, starts[i]);
+    }
+
+    private boolean isIdentifier(int i) {
+        return isWord(i) && !KEYWORDS.contains(text(i));
+    }
+
+    private String text(int i) {
+        return source.substring(starts[i], ends[i]);
+    }
+
+    // Two tokens written without anything between them (e.g. "->")
+    private boolean areAdjacent(int i) {
+        return i + 1 < count && ends[i] == starts[i + 1];
+    }
+
+    private boolean isArrow(int i) {
+        return isPunctuation(i, '-') && isPunctuation(i + 1, '>') && areAdjacent(i);
+    }
+
+    private TypeKind typeKindAt(int i) {
+        if (isWord(i, "class") || isWord(i, "interface")) {
+            return TypeKind.CLASS;
+        }
+        if (isWord(i, "enum")) {
+            return TypeKind.ENUM;
+        }
+        return null;
+    }
+
+    private boolean isRecordDeclaration(int i) {
+        return isWord(i, "record") && !isPunctuation(i - 1, '.') && isIdentifier(i + 1)
+                && (isPunctuation(i + 2, '(') || isPunctuation(i + 2, '<'));
+    }
+
+    // sealed and non-sealed types are rejected by the parser
+    private void rejectSealed(int i) throws UnsupportedSourceException {
+        if ((isWord(i, "sealed") && isWord(i + 1)) || (isWord(i, "non") && isPunctuation(i + 1, '-') && isWord(i + 2, "sealed"))) {
+            throw new UnsupportedSourceException();
+        }
+    }
+
+    // ---- Declarations ----
+
+    private void scanCompilationUnit() throws UnsupportedSourceException {
+        int i = 0;
+        while (i < count) {
+            rejectSealed(i);
+            if (isRecordDeclaration(i)) {
+                throw new UnsupportedSourceException();
+            }
+
+            if (isPunctuation(i, '@')) {
+                i = isWord(i + 1, "interface") ? scanTypeDeclaration(i + 1, TypeKind.ANNOTATION) : skipAnnotation(i);
+            } else if (typeKindAt(i) != null) {
+                i = scanTypeDeclaration(i, typeKindAt(i));
+            } else if (isPunctuation(i, '{')) {
+                i = scanCode(i + 1, '}'); // Module declaration
+            } else {
+                i++;
+            }
+        }
+    }
+
+    // i is the class, interface or enum keyword; returns the index after the body
+    private int scanTypeDeclaration(int i, TypeKind kind) throws UnsupportedSourceException {
+        int j = i + 1;
+        while (!isPunctuation(j, '{')) {
+            require(j);
+            if (isPunctuation(j, '@')) {
+                j = skipAnnotation(j);
+                continue;
+            }
+            if (isWord(j, "permits") || isPunctuation(j, '(') || isPunctuation(j, ';') || isPunctuation(j, '}')) {
+                throw new UnsupportedSourceException();
+            }
+            j++;
+        }
+        return scanTypeBody(j, kind);
+    }
+
+    // i is the opening brace; returns the index after the closing one
+    private int scanTypeBody(int i, TypeKind kind) throws UnsupportedSourceException {
+        int j = i + 1;
+
+        // The parser visits the enum constants after the members
+        List<ScannedMethod> constantMethods = null;
+        if (kind == TypeKind.ENUM) {
+            List<ScannedMethod> outerMethods = methods;
+            methods = new ArrayList<>();
+            j = scanEnumConstants(j);
+            constantMethods = methods;
+            methods = outerMethods;
+        }
+
+        while (!isPunctuation(j, '}')) {
+            require(j);
+            j = scanMember(j, kind);
+        }
+
+        if (constantMethods != null) {
+            methods.addAll(constantMethods);
+        }
+        return j + 1;
+    }
+
+    // Returns the index of the first member (after the ';') or of the closing brace
+    private int scanEnumConstants(int i) throws UnsupportedSourceException {
+        int j = i;
+        while (true) {
+            require(j);
+            if (isPunctuation(j, '@')) {
+                j = skipAnnotation(j);
+            } else if (isPunctuation(j, ';')) {
+                return j + 1;
+            } else if (isPunctuation(j, '}')) {
+                return j;
+            } else if (isPunctuation(j, ',')) {
+                j++;
+            } else if (isIdentifier(j)) {
+                j++;
+                if (isPunctuation(j, '(')) {
+                    j = scanCode(j + 1, ')');
+                }
+                if (isPunctuation(j, '{')) {
+                    j = scanTypeBody(j, TypeKind.CLASS);
+                }
+            } else {
+                throw new UnsupportedSourceException();
+            }
+        }
+    }
+
+    // Returns the index after the member
+    private int scanMember(int i, TypeKind kind) throws UnsupportedSourceException {
+        if (isPunctuation(i, ';')) {
+            return i + 1;
+        }
+
+        int begin = i;
+        int j = i;
+        while (true) {
+            require(j);
+            rejectSealed(j);
+            if (isPunctuation(j, '@')) {
+                if (isWord(j + 1, "interface")) {
+                    return scanTypeDeclaration(j + 1, TypeKind.ANNOTATION);
+                }
+                j = skipAnnotation(j);
+            } else if (isWord(j) && MODIFIERS.contains(text(j))) {
+                j++;
+            } else {
+                break;
+            }
+        }
+
+        if (typeKindAt(j) != null) {
+            return scanTypeDeclaration(j, typeKindAt(j));
+        }
+        if (isRecordDeclaration(j)) {
+            throw new UnsupportedSourceException();
+        }
+        if (isPunctuation(j, '{')) {
+            return scanCode(j + 1, '}'); // Initializer
+        }
+        if (kind == TypeKind.ANNOTATION) {
+            return scanCode(j, ';'); // Annotation member or constant
+        }
+
+        if (isPunctuation(j, '<')) {
+            j = skipTypeArguments(j); // Type parameters
+        }
+        int headerStart = j;
+        int angleDepth = 0;
+        while (true) {
+            require(j);
+            if (isPunctuation(j, '@')) {
+                j = skipAnnotation(j);
+                continue;
+            }
+            if (isPunctuation(j, '<')) {
+                angleDepth++;
+            } else if (isPunctuation(j, '>')) {
+                angleDepth--;
+            } else if (angleDepth == 0) {
+                if (isPunctuation(j, '(')) {
+                    break;
+                }
+                if (isPunctuation(j, '=') || isPunctuation(j, ';') || isPunctuation(j, ',')) {
+                    return scanCode(j, ';'); // Field
+                }
+                if (isPunctuation(j, '{') || isPunctuation(j, '}') || isPunctuation(j, ')')) {
+                    throw new UnsupportedSourceException();
+                }
+            }
+            j++;
+        }
+
+        int name = j - 1;
+        if (!isIdentifier(name)) {
+            throw new UnsupportedSourceException();
+        }
+        boolean isMethod = name > headerStart; // Constructors have no return type
+
+        String signature = null;
+        if (isMethod) {
+            List<String> parameterTypes = new ArrayList<>();
+            j = scanParameters(j, parameterTypes);
+            signature = text(name) + "(" + String.join(", ", parameterTypes) + ")";
+        } else {
+            j = scanCode(j + 1, ')');
+        }
+
+        // Array dimensions of old-style declarations and thrown exceptions
+        while (!isPunctuation(j, '{') && !isPunctuation(j, ';')) {
+            require(j);
+            if (isPunctuation(j, '@')) {
+                j = skipAnnotation(j);
+            } else if (isPunctuation(j, '(') || isPunctuation(j, '}') || isPunctuation(j, '=')) {
+                throw new UnsupportedSourceException();
+            } else {
+                j++;
+            }
+        }
+
+        if (isPunctuation(j, ';')) {
+            if (isMethod) {
+                methods.add(createMethod(signature, begin, j, -1, -1));
+            }
+            return j + 1;
+        }
+
+        // The method comes before the methods of the classes declared in its body
+        int position = methods.size();
+        if (isMethod) {
+            methods.add(null);
+        }
+        int bodyOpen = j;
+        int afterBody = scanCode(bodyOpen + 1, '}');
+        if (isMethod) {
+            methods.set(position, createMethod(signature, begin, afterBody - 1, bodyOpen, afterBody - 1));
+        }
+        return afterBody;
+    }
+
+    private ScannedMethod createMethod(String signature, int begin, int last, int bodyOpen, int bodyClose) {
+        int endColumn = columns[last] + (ends[last] - starts[last]) - 1;
+        if (bodyOpen < 0) {
+            return new ScannedMethod(signature, lines[begin], columns[begin], lines[last], endColumn, TokenFingerprint.ABSENT_BODY, 0);
+        }
+        return new ScannedMethod(signature, lines[begin], columns[begin], lines[last], endColumn, () -> measureBody(bodyOpen, bodyClose));
+    }
+
+    // The LOC counts the lines with a token other than a brace, as MetricCalculator.calculateLOC
+    // (comments are not tokens here and no token spans two lines)
+    private ScannedMethod.BodyMeasure measureBody(int bodyOpen, int bodyClose) {
+        TokenFingerprint fingerprint = new TokenFingerprint();
+        int loc = 0;
+        int lastCountedLine = 0;
+        for (int t = bodyOpen; t <= bodyClose; t++) {
+            if (kinds[t] == PUNCTUATION) {
+                fingerprint.addPunctuation(source, starts[t], ends[t]);
+            } else {
+                fingerprint.addUnit(source, starts[t], ends[t]);
+            }
+            if (lines[t] > lastCountedLine && !isPunctuation(t, '{') && !isPunctuation(t, '}')) {
+                loc++;
+                lastCountedLine = lines[t];
+            }
+        }
+        return new ScannedMethod.BodyMeasure(fingerprint.get(), loc);
+    }
+
+    // i is the opening parenthesis; adds the types as written by the parser in the signature and
+    // returns the index after the closing parenthesis
+    private int scanParameters(int i, List<String> parameterTypes) throws UnsupportedSourceException {
+        int j = i + 1;
+        if (isPunctuation(j, ')')) {
+            return j + 1;
+        }
+
+        while (true) {
+            while (isPunctuation(j, '@') || isWord(j, "final")) {
+                j = isWord(j, "final") ? j + 1 : skipAnnotation(j);
+            }
+
+            ParsedType type = new ParsedType();
+            j = scanType(j, type);
+
+            while (isPunctuation(j, '@')) {
+                j = skipAnnotation(j);
+            }
+            boolean varArgs = false;
+            if (isPunctuation(j, '.') && isPunctuation(j + 1, '.') && isPunctuation(j + 2, '.')) {
+                varArgs = true;
+                j += 3;
+            }
+
+            // The receiver parameter ([Outer.]this) is not a parameter for the parser
+            boolean receiver = false;
+            if (isWord(j, "this")) {
+                receiver = true;
+                j++;
+            } else if (isIdentifier(j)) {
+                j++;
+                if (isPunctuation(j, '.') && isWord(j + 1, "this")) {
+                    receiver = true;
+                    j += 2;
+                }
+            } else {
+                throw new UnsupportedSourceException();
+            }
+
+            int nameDimensions = 0;
+            while (isPunctuation(j, '[') && isPunctuation(j + 1, ']')) {
+                nameDimensions++;
+                j += 2;
+            }
+
+            if (!receiver) {
+                parameterTypes.add(type.asSignatureType(nameDimensions, varArgs));
+            }
+
+            if (isPunctuation(j, ',')) {
+                j++;
+            } else if (isPunctuation(j, ')')) {
+                return j + 1;
+            } else {
+                throw new UnsupportedSourceException();
+            }
+        }
+    }
+
+    // Type of a parameter as printed by the parser: annotations are dropped, and the type arguments of
+    // a class type are dropped too unless it is the component of an array (varargs included)
+    private static class ParsedType {
+        final StringBuilder withArguments = new StringBuilder();
+        String withoutArguments;
+        int dimensions;
+
+        String asSignatureType(int nameDimensions, boolean varArgs) {
+            int totalDimensions = dimensions + nameDimensions + (varArgs ? 1 : 0);
+            return totalDimensions == 0 ? withoutArguments : withDimensions(totalDimensions);
+        }
+
+        String asTypeArgument() {
+            return withDimensions(dimensions);
+        }
+
+        private String withDimensions(int count) {
+            StringBuilder result = new StringBuilder(withArguments);
+            for (int d = 0; d < count; d++) {
+                result.append("[]");
+            }
+            return result.toString();
+        }
+    }
+
+    // Returns the index after the type
+    private int scanType(int i, ParsedType type) throws UnsupportedSourceException {
+        int j = i;
+        while (isPunctuation(j, '@')) {
+            j = skipAnnotation(j);
+        }
+        if (!isWord(j)) {
+            throw new UnsupportedSourceException();
+        }
+
+        if (PRIMITIVE_TYPES.contains(text(j))) {
+            type.withArguments.append(text(j));
+            type.withoutArguments = text(j);
+            j++;
+        } else {
+            while (true) {
+                if (!isIdentifier(j)) {
+                    throw new UnsupportedSourceException();
+                }
+                type.withArguments.append(text(j));
+                // Only the arguments of the last name are dropped (Outer<T>.Inner keeps them)
+                type.withoutArguments = type.withArguments.toString();
+                j++;
+                if (isPunctuation(j, '<')) {
+                    j = scanTypeArguments(j, type.withArguments);
+                }
+
+                // A qualified name goes on, varargs dots do not
+                if (isPunctuation(j, '.') && !isPunctuation(j + 1, '.')) {
+                    type.withArguments.append('.');
+                    j++;
+                    while (isPunctuation(j, '@')) {
+                        j = skipAnnotation(j);
+                    }
+                } else {
+                    break;
+                }
+            }
+        }
+
+        while (true) {
+            int k = j;
+            while (isPunctuation(k, '@')) {
+                k = skipAnnotation(k);
+            }
+            if (isPunctuation(k, '[') && isPunctuation(k + 1, ']')) {
+                type.dimensions++;
+                j = k + 2;
+            } else {
+                return j;
+            }
+        }
+    }
+
+    // i is '<'; appends the arguments as printed by the parser ("<A,? extends B>") and returns the
+    // index after the matching '>'
+    private int scanTypeArguments(int i, StringBuilder out) throws UnsupportedSourceException {
+        out.append('<');
+        int j = i + 1;
+        if (isPunctuation(j, '>')) {
+            out.append('>');
+            return j + 1;
+        }
+
+        while (true) {
+            while (isPunctuation(j, '@')) {
+                j = skipAnnotation(j);
+            }
+            if (isPunctuation(j, '?')) {
+                out.append('?');
+                j++;
+                while (isPunctuation(j, '@')) {
+                    j = skipAnnotation(j);
+                }
+                if (isWord(j, "extends") || isWord(j, "super")) {
+                    out.append(' ').append(text(j)).append(' ');
+                    ParsedType bound = new ParsedType();
+                    j = scanType(j + 1, bound);
+                    out.append(bound.asTypeArgument());
+                }
+            } else {
+                ParsedType argument = new ParsedType();
+                j = scanType(j, argument);
+                out.append(argument.asTypeArgument());
+            }
+
+            if (isPunctuation(j, ',')) {
+                out.append(',');
+                j++;
+            } else if (isPunctuation(j, '>')) {
+                out.append('>');
+                return j + 1;
+            } else {
+                throw new UnsupportedSourceException();
+            }
+        }
+    }
+
+    // i is '<'; returns the index after the matching '>'
+    private int skipTypeArguments(int i) throws UnsupportedSourceException {
+        int depth = 0;
+        int j = i;
+        while (true) {
+            require(j);
+            if (isPunctuation(j, '@')) {
+                j = skipAnnotation(j);
+                continue;
+            }
+            if (isPunctuation(j, '<')) {
+                depth++;
+            } else if (isPunctuation(j, '>')) {
+                depth--;
+                if (depth == 0) {
+                    return j + 1;
+                }
+            } else if (isPunctuation(j, '(') || isPunctuation(j, ')') || isPunctuation(j, '{')
+                    || isPunctuation(j, '}') || isPunctuation(j, ';') || isPunctuation(j, '=')) {
+                throw new UnsupportedSourceException();
+            }
+            j++;
+        }
+    }
+
+    // i is '@'; returns the index after the annotation
+    private int skipAnnotation(int i) throws UnsupportedSourceException {
+        int j = i + 1;
+        if (!isWord(j)) {
+            throw new UnsupportedSourceException();
+        }
+        j++;
+        while (isPunctuation(j, '.') && isWord(j + 1)) {
+            j += 2;
+        }
+        if (isPunctuation(j, '(')) {
+            j = scanCode(j + 1, ')');
+        }
+        return j;
+    }
+
+    // ---- Code ----
+
+    // Scans code up to the closer at the same nesting level and returns the index after it. Only the
+    // classes declared in the code matter (anonymous and local classes), and the constructs the
+    // parser rejects
+    private int scanCode(int i, char closer) throws UnsupportedSourceException {
+        int j = i;
+        while (true) {
+            require(j);
+            if (kinds[j] == PUNCTUATION) {
+                char c = source.charAt(starts[j]);
+                if (c == closer) {
+                    return j + 1;
+                }
+                switch (c) {
+                    case '{':
+                        j = scanCode(j + 1, '}');
+                        continue;
+                    case '(':
+                        j = scanCode(j + 1, ')');
+                        continue;
+                    case '[':
+                        j = scanCode(j + 1, ']');
+                        continue;
+                    case '}':
+                    case ')':
+                    case ']':
+                        throw new UnsupportedSourceException();
+                    default:
+                        j++;
+                        continue;
+                }
+            }
+
+            if (kinds[j] == WORD) {
+                if (isWord(j, "new")) {
+                    j = scanCreator(j);
+                    continue;
+                }
+                if (isWord(j, "class") && !isPunctuation(j - 1, '.')) {
+                    j = scanTypeDeclaration(j, TypeKind.CLASS); // Local class
+                    continue;
+                }
+                rejectUnsupportedCode(j);
+            }
+            j++;
+        }
+    }
+
+    private void rejectUnsupportedCode(int j) throws UnsupportedSourceException {
+        boolean unsupported = isWord(j, "interface") || isWord(j, "enum") || isWord(j, "_") || isRecordDeclaration(j)
+                || (isWord(j, "yield") && !isPunctuation(j - 1, '.'))
+                || (isWord(j, "default") && isArrow(j + 1));
+        if (unsupported) {
+            throw new UnsupportedSourceException();
+        }
+        if (isWord(j, "case")) {
+            rejectSwitchRule(j + 1);
+        } else if (isWord(j, "instanceof")) {
+            rejectTypePattern(j + 1);
+        }
+    }
+
+    // "case X ->" and "case A, B:" need a newer language level
+    private void rejectSwitchRule(int i) throws UnsupportedSourceException {
+        int depth = 0;
+        int j = i;
+        while (true) {
+            require(j);
+            if (isPunctuation(j, '(') || isPunctuation(j, '[') || isPunctuation(j, '{')) {
+                depth++;
+            } else if (isPunctuation(j, ')') || isPunctuation(j, ']') || isPunctuation(j, '}')) {
+                depth--;
+                if (depth < 0) {
+                    throw new UnsupportedSourceException();
+                }
+            } else if (depth == 0) {
+                if (isPunctuation(j, ':')) {
+                    return;
+                }
+                if (isArrow(j) || isPunctuation(j, ',')) {
+                    throw new UnsupportedSourceException();
+                }
+            }
+            j++;
+        }
+    }
+
+    // "x instanceof Type name" needs a newer language level
+    private void rejectTypePattern(int i) throws UnsupportedSourceException {
+        int j = i;
+        if (isWord(j, "final")) {
+            throw new UnsupportedSourceException();
+        }
+        while (isPunctuation(j, '@')) {
+            j = skipAnnotation(j);
+        }
+        if (!isWord(j)) {
+            return;
+        }
+        j++;
+        while (true) {
+            if (isPunctuation(j, '<')) {
+                j = skipTypeArguments(j);
+            }
+            if (isPunctuation(j, '.') && isWord(j + 1)) {
+                j += 2;
+            } else {
+                break;
+            }
+        }
+        while (isPunctuation(j, '[') && isPunctuation(j + 1, ']')) {
+            j += 2;
+        }
+        if (isIdentifier(j)) {
+            throw new UnsupportedSourceException();
+        }
+    }
+
+    // i is "new"; returns the index to continue from
+    private int scanCreator(int i) throws UnsupportedSourceException {
+        int j = i + 1;
+        if (isPunctuation(j, '<')) {
+            j = skipTypeArguments(j);
+        }
+        while (isPunctuation(j, '@')) {
+            j = skipAnnotation(j);
+        }
+        if (!isWord(j)) {
+            return i + 1; // Constructor reference (X::new)
+        }
+        while (true) {
+            j++;
+            if (isPunctuation(j, '<')) {
+                j = skipTypeArguments(j);
+            }
+            if (isPunctuation(j, '.') && (isWord(j + 1) || isPunctuation(j + 1, '@'))) {
+                j++;
+                while (isPunctuation(j, '@')) {
+                    j = skipAnnotation(j);
+                }
+            } else {
+                break;
+            }
+        }
+        if (!isPunctuation(j, '(')) {
+            return j; // Array creation
+        }
+        j = scanCode(j + 1, ')');
+        if (isPunctuation(j, '{')) {
+            j = scanTypeBody(j, TypeKind.CLASS); // Anonymous class
+        }
+        return j;
+    }
+}
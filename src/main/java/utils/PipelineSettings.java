@@ -0,0 +1,193 @@
+package utils;
+
+import model.DatasetMetric;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+
+// Tunables of the pipeline, read from system properties (e.g. -Dpredictor.incremental=false)
+public class PipelineSettings {
+
+    private static final String PREFIX = "predictor.";
+
+    private PipelineSettings() {}
+
+    // -Dpredictor.incremental=true reuses the history checkpoint of the previous run and only processes the new
+    // commits; off by default, so a plain run neither reads nor writes state of an earlier one. It only concerns
+    // the history pass: every release snapshot is still listed and its files looked up in the method cache,
+    // which parses only the blobs no earlier run has parsed, incremental or not
+    public static boolean isIncrementalExtraction() {
+        return getBoolean("incremental", false);
+    }
+
+    // Threads used to parse the release snapshots and to visit the commits of the history
+    public static int getWorkerThreads() {
+        return Math.max(1, getInt("threads", Runtime.getRuntime().availableProcessors()));
+    }
+
+    // Files the methods are extracted from, e.g. -Dpredictor.sourceSuffixes=.java
+    public static List<String> getSourceSuffixes() {
+        return getList("sourceSuffixes", ".java");
+    }
+
+    // Paths containing one of these fragments are skipped, e.g. -Dpredictor.excludedPaths=/test/,/generated-sources/
+    public static List<String> getExcludedPathFragments() {
+        return getList("excludedPaths", "/test/");
+    }
+
+    // -Dpredictor.churn=EDITS measures the churn on the diff edits instead of the LOC delta; an unknown mode is
+    // rejected, since it is also written in the history checkpoint
+    public static ChurnMode getChurnMode() {
+        String value = System.getProperty(PREFIX + "churn");
+        if (value == null) {
+            return ChurnMode.LOC_DELTA;
+        }
+        try {
+            return ChurnMode.valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown churn mode '" + value + "' in -D" + PREFIX + "churn, expected one of "
+                    + Arrays.toString(ChurnMode.values()), e);
+        }
+    }
+
+    // Base URL of the JIRA instance, e.g. -Dpredictor.jiraUrl=http://localhost:8080 for a local stub
+    public static String getJiraBaseUrl() {
+        String url = System.getProperty(PREFIX + "jiraUrl", "https://issues.apache.org/jira").trim();
+        return url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+    }
+
+    // JIRA search pages fetched at the same time
+    public static int getJiraConcurrency() {
+        return Math.max(1, getInt("jiraConcurrency", 4));
+    }
+
+    // Directory of the recorded JIRA responses
+    public static String getJiraCacheDir() {
+        return System.getProperty(PREFIX + "jiraCacheDir", "cacheFiles/jira").trim();
+    }
+
+    // Hours a recorded JIRA response of an earlier run is reused before asking the server again; 0 (the default)
+    // always asks, so a plain run sees fresh JIRA data. Responses fetched by the run itself are always reused
+    public static int getJiraCacheTtlHours() {
+        return Math.max(0, getInt("jiraCacheTtlHours", 0));
+    }
+
+    // Only replay the recorded JIRA responses: a request that was never recorded fails
+    public static boolean isJiraOffline() {
+        return getBoolean("jiraOffline", false);
+    }
+
+    // Projects whose proportions give the cold start (their median), e.g. -Dpredictor.proportionProjects=AVRO,STORM;
+    // when empty the proportion of the project itself is used
+    public static List<String> getProportionReferenceProjects() {
+        return getList("proportionProjects", "");
+    }
+
+    // Table of the cold-start proportions computed by the previous runs
+    public static String getProportionTable() {
+        return System.getProperty(PREFIX + "proportionTable", "cacheFiles/proportions.csv").trim();
+    }
+
+    // Hours a stored proportion is reused before it is computed again from JIRA; 0 (the default) always recomputes
+    public static int getProportionTtlHours() {
+        return Math.max(0, getInt("proportionTtlHours", 0));
+    }
+
+    // -Dpredictor.proportion=WINDOW or MEDIAN changes how the IV of the tickets without AV is estimated;
+    // an unknown method is rejected, so a typo does not silently give the default one
+    public static ProportionMethod getProportionMethod() {
+        String value = System.getProperty(PREFIX + "proportion");
+        if (value == null) {
+            return ProportionMethod.INCREMENT;
+        }
+        try {
+            return ProportionMethod.valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown proportion method '" + value + "' in -D" + PREFIX + "proportion, expected one of "
+                    + Arrays.toString(ProportionMethod.values()), e);
+        }
+    }
+
+    // Tickets whose proportions are averaged by the WINDOW method
+    public static int getProportionWindow() {
+        return Math.max(1, getInt("proportionWindow", 10));
+    }
+
+    // Also score every proportion method on the tickets with known AVs and log the best one
+    public static boolean isProportionEvaluation() {
+        return getBoolean("proportionEvaluation", false);
+    }
+
+    // Features written to the dataset: "all" (default), "static" for the metrics of the snapshots only (no
+    // churn or revision history), or a list of columns, e.g. -Dpredictor.metrics=#Branches,NFix. LOC and NSmells
+    // are always written, since the classifier analysis needs LOC and the what-if analysis NSmells; an unknown
+    // name is rejected
+    public static List<DatasetMetric> getDatasetMetrics() {
+        List<DatasetMetric> metrics = new ArrayList<>();
+        for (String name : getList("metrics", "all")) {
+            if (name.equalsIgnoreCase("all")) {
+                metrics.addAll(Arrays.asList(DatasetMetric.values()));
+            } else if (name.equalsIgnoreCase("static")) {
+                for (DatasetMetric metric : DatasetMetric.values()) {
+                    if (metric.getCost() == DatasetMetric.Cost.AST) {
+                        metrics.add(metric);
+                    }
+                }
+            } else if (DatasetMetric.fromName(name) != null) {
+                metrics.add(DatasetMetric.fromName(name));
+            } else {
+                throw new IllegalArgumentException("Unknown metric '" + name + "' in -D" + PREFIX + "metrics, expected all, static or one of "
+                        + Arrays.toString(DatasetMetric.columnNames()));
+            }
+        }
+
+        // A blank value is the default; the selection is kept in column order, without repetitions
+        EnumSet<DatasetMetric> selected = metrics.isEmpty() ? EnumSet.allOf(DatasetMetric.class) : EnumSet.copyOf(metrics);
+        selected.add(DatasetMetric.LOC);
+        selected.add(DatasetMetric.NSMELLS);
+        return new ArrayList<>(selected);
+    }
+
+    // Reads the settings that reject wrong values, so a typo stops the run before anything is fetched
+    public static void validate() {
+        getWorkerThreads();
+        getChurnMode();
+        getJiraConcurrency();
+        getJiraCacheTtlHours();
+        getProportionTtlHours();
+        getProportionMethod();
+        getProportionWindow();
+        getDatasetMetrics();
+    }
+
+    private static boolean getBoolean(String name, boolean defaultValue) {
+        String value = System.getProperty(PREFIX + name);
+        return value == null ? defaultValue : Boolean.parseBoolean(value.trim());
+    }
+
+    // Comma separated values, blank ones are ignored
+    private static List<String> getList(String name, String defaultValue) {
+        List<String> values = new ArrayList<>();
+        for (String value : System.getProperty(PREFIX + name, defaultValue).split(",")) {
+            if (!value.trim().isEmpty()) {
+                values.add(value.trim());
+            }
+        }
+        return values;
+    }
+
+    // A value that is not a number is rejected instead of falling back to the default
+    private static int getInt(String name, int defaultValue) {
+        String value = System.getProperty(PREFIX + name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Expected a number in -D" + PREFIX + name + ", found '" + value + "'", e);
+        }
+    }
+}
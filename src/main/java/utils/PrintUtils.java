@@ -4,14 +4,13 @@ import com.github.javaparser.ast.body.ConstructorDeclaration;
 import com.github.javaparser.ast.body.MethodDeclaration;
 import controller.MetricCalculator;
 import model.*;
-import org.eclipse.jgit.revwalk.RevCommit;
 
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.PrintWriter;
-import java.text.SimpleDateFormat;
-import java.time.LocalDate;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
@@ -37,16 +36,25 @@ public class PrintUtils {
         }
     }
 
-    public static void printCommits(String project, List<RevCommit> commitList, String name) throws IOException {
+    public static void printCommits(String project, CommitTable commitTable, String name) throws IOException {
+        CommitSet allCommits = new CommitSet();
+        for (int commit = 0; commit < commitTable.size(); commit++) {
+            allCommits.add(commit);
+        }
+        printCommits(project, commitTable, allCommits, name);
+    }
+
+    public static void printCommits(String project, CommitTable commitTable, CommitSet commits, String name) throws IOException {
         String projectDir = REPORT_DIR + project.toLowerCase() + SLASH;
         ensureDirectoryExists(projectDir);
 
         try (FileWriter fileWriter = new FileWriter(projectDir + name)) {
             fileWriter.append("id,committer,creationDate\n");
-            for (RevCommit commit : commitList) {
-                fileWriter.append(commit.getName()).append(",")
-                        .append(commit.getCommitterIdent().getName()).append(",")
-                        .append(String.valueOf(LocalDate.parse(new SimpleDateFormat("yyyy-MM-dd").format(commit.getCommitterIdent().getWhen()))))
+            for (int k = 0; k < commits.size(); k++) {
+                int commit = commits.get(k);
+                fileWriter.append(commitTable.getName(commit)).append(",")
+                        .append(commitTable.getCommitterName(commit)).append(",")
+                        .append(String.valueOf(commitTable.getCommitDate(commit)))
                         .append(DELIMITER);
             }
         } catch (IOException e) {
@@ -92,7 +100,7 @@ public class PrintUtils {
                 fileWriter.append(String.valueOf(release.getId())).append(",")
                         .append(release.getName()).append(",")
                         .append(String.valueOf(release.getDate())).append(",")
-                        .append(String.valueOf(release.getCommitList().size()))
+                        .append(String.valueOf(release.getCommits().size()))
                         .append(DELIMITER);
             }
         } catch (IOException e) {
@@ -100,7 +108,7 @@ public class PrintUtils {
         }
     }
 
-    public static void printMethods(String project, List<JavaMethod> methods) throws IOException {
+    public static void printMethods(String project, CommitTable commitTable, List<JavaMethod> methods) throws IOException {
         String projectDir = REPORT_DIR + project.toLowerCase() + SLASH;
         ensureDirectoryExists(projectDir);
 
@@ -108,7 +116,7 @@ public class PrintUtils {
             fileWriter.append("fullyQualifiedName,firstCommit,#Commits\n");
 
             for (JavaMethod m : methods) {
-                String firstCommit = m.getCommits().isEmpty() ? "" : m.getCommits().get(0).toString();
+                String firstCommit = m.getCommits().isEmpty() ? "" : commitTable.describe(m.getCommits().first());
 
                 fileWriter.append(escapeCSV(m.getFullyQualifiedName())).append(",")
                         .append(escapeCSV(firstCommit)).append(",")
@@ -120,26 +128,26 @@ public class PrintUtils {
         }
     }
 
-    public static void createDataset(String fullPath, List<JavaMethod> methods) {
+    // The Methods.csv of an earlier run, whose history columns would not match a dataset without them
+    public static void deleteMethods(String project) throws IOException {
+        Files.deleteIfExists(Paths.get(REPORT_DIR + project.toLowerCase() + SLASH + "Methods.csv"));
+    }
+
+    public static void createDataset(String fullPath, List<JavaMethod> methods, List<DatasetMetric> metrics) {
         try (FileWriter fileWriter = new FileWriter(fullPath)) {
-            fileWriter.append("FullyQualifiedName,Release,LOC,#Parameters,#Authors,#Revisions,StmtAdded,StmtDeleted,MaxChurn,AvgChurn,#Branches,NestingDepth,NFix,NSmells,Buggy\n");
+            fileWriter.append("FullyQualifiedName,Release");
+            for (DatasetMetric metric : metrics) {
+                fileWriter.append(",").append(metric.getColumnName());
+            }
+            fileWriter.append(",Buggy\n");
 
             for (JavaMethod m : methods) {
                 fileWriter.append(escapeCSV(m.getFullyQualifiedName())).append(",")
-                        .append(String.valueOf(m.getRelease().getId())).append(",")
-                        .append(String.valueOf(m.getLoc())).append(",")
-                        .append(String.valueOf(m.getNumParameters())).append(",")
-                        .append(String.valueOf(m.getNumAuthors())).append(",")
-                        .append(String.valueOf(m.getNumRevisions())).append(",")
-                        .append(String.valueOf(m.getTotalStmtAdded())).append(",")
-                        .append(String.valueOf(m.getTotalStmtDeleted())).append(",")
-                        .append(String.valueOf(m.getMaxChurnInARevision())).append(",")
-                        .append(String.valueOf(m.getAvgChurn())).append(",")
-                        .append(String.valueOf(m.getNumberOfBranches())).append(",")
-                        .append(String.valueOf(m.getNestingDepth())).append(",")
-                        .append(String.valueOf(m.getNFix())).append(",")
-                        .append(String.valueOf(m.getNumberOfCodeSmells())).append(",")
-                        .append(m.isBuggy() ? "yes" : "no")
+                        .append(String.valueOf(m.getRelease().getId()));
+                for (DatasetMetric metric : metrics) {
+                    fileWriter.append(",").append(metric.valueOf(m));
+                }
+                fileWriter.append(",").append(m.isBuggy() ? "yes" : "no")
                         .append(DELIMITER);
             }
         } catch (IOException e) {
@@ -200,50 +208,36 @@ public class PrintUtils {
     }
 
     public static void printMetricsForMethod(MethodDeclaration md, String versionTag, PrintWriter writer) {
-        int loc = MetricCalculator.calculateLOC(md);
-        int numParams = md.getParameters().size();
-        int numBranches = MetricCalculator.calculateNumberOfBranches(md);
-        int nestingDepth = MetricCalculator.calculateNestingDepth(md);
-        int numSmells = MetricCalculator.calculateCodeSmells(md, numBranches, loc, nestingDepth, numParams);
-
-        writer.printf("%s,%s,%d,%d,%d,%d,%d%n", md.getNameAsString(), versionTag, loc, numParams, numBranches, nestingDepth, numSmells);
+        printMetrics(md.getNameAsString(), versionTag, MetricCalculator.calculateMetrics(md), writer);
     }
 
     public static void printMetricsForConstructor(ConstructorDeclaration cd, String versionTag, PrintWriter writer) {
-        MethodDeclaration fakeMethod = new MethodDeclaration().setBody(cd.getBody());
-        cd.getParameters().forEach(fakeMethod::addParameter);
-
-        int loc = MetricCalculator.calculateLOC(fakeMethod);
-        int numParams = cd.getParameters().size();
-        int numBranches = MetricCalculator.calculateNumberOfBranches(fakeMethod);
-        int nestingDepth = MetricCalculator.calculateNestingDepth(fakeMethod);
-        int numSmells = MetricCalculator.calculateCodeSmells(fakeMethod, numBranches, loc, nestingDepth, numParams);
+        printMetrics(cd.getNameAsString() + " (constructor)", versionTag, MetricCalculator.calculateMetrics(cd.getBody(), cd.getParameters().size()), writer);
+    }
 
-        writer.printf("%s (constructor),%s,%d,%d,%d,%d,%d%n", cd.getNameAsString(), versionTag, loc, numParams, numBranches, nestingDepth, numSmells);
+    private static void printMetrics(String name, String versionTag, MethodMetrics metrics, PrintWriter writer) {
+        writer.printf("%s,%s,%d,%d,%d,%d,%d%n", name, versionTag, metrics.getLoc(), metrics.getNumParameters(),
+                metrics.getNumberOfBranches(), metrics.getNestingDepth(), metrics.getNumberOfCodeSmells());
     }
 
     public static void printAggregatedMetrics(MethodDeclaration mainRefactored, List<MethodDeclaration> allMethods, List<ConstructorDeclaration> allConstructors, PrintWriter writer) {
+        List<MethodMetrics> allMetrics = new ArrayList<>();
+        for (MethodDeclaration md : allMethods) {
+            allMetrics.add(MetricCalculator.calculateMetrics(md));
+        }
+        for (ConstructorDeclaration cd : allConstructors) {
+            allMetrics.add(MetricCalculator.calculateMetrics(cd.getBody(), cd.getParameters().size()));
+        }
+
         int totalLoc = 0;
         int totalBranches = 0;
         int maxNesting = 0;
         int totalSmells = 0;
-
-        for (MethodDeclaration md : allMethods) {
-            totalLoc += MetricCalculator.calculateLOC(md);
-            totalBranches += MetricCalculator.calculateNumberOfBranches(md);
-            int nesting = MetricCalculator.calculateNestingDepth(md);
-            if (nesting > maxNesting) maxNesting = nesting;
-            totalSmells += MetricCalculator.calculateCodeSmells(md, MetricCalculator.calculateNumberOfBranches(md), MetricCalculator.calculateLOC(md), nesting, md.getParameters().size());
-        }
-
-        for (ConstructorDeclaration cd : allConstructors) {
-            MethodDeclaration fakeMethod = new MethodDeclaration().setBody(cd.getBody());
-            cd.getParameters().forEach(fakeMethod::addParameter);
-            totalLoc += MetricCalculator.calculateLOC(fakeMethod);
-            totalBranches += MetricCalculator.calculateNumberOfBranches(fakeMethod);
-            int nesting = MetricCalculator.calculateNestingDepth(fakeMethod);
-            if (nesting > maxNesting) maxNesting = nesting;
-            totalSmells += MetricCalculator.calculateCodeSmells(fakeMethod, MetricCalculator.calculateNumberOfBranches(fakeMethod), MetricCalculator.calculateLOC(fakeMethod), nesting, cd.getParameters().size());
+        for (MethodMetrics metrics : allMetrics) {
+            totalLoc += metrics.getLoc();
+            totalBranches += metrics.getNumberOfBranches();
+            if (metrics.getNestingDepth() > maxNesting) maxNesting = metrics.getNestingDepth();
+            totalSmells += metrics.getNumberOfCodeSmells();
         }
 
         int mainParams = mainRefactored.getParameters().size();
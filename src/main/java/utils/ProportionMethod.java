@@ -0,0 +1,11 @@
+package utils;
+
+// How the proportion of the next ticket is estimated from the proportions of the previous ones
+public enum ProportionMethod {
+    // Mean of all the previous proportions
+    INCREMENT,
+    // Mean of the last proportionWindow proportions
+    WINDOW,
+    // Median of all the previous proportions
+    MEDIAN
+}
@@ -0,0 +1,71 @@
+package utils;
+
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
+
+import java.util.List;
+
+// Selects the source files the methods are extracted from: paths ending with one of the suffixes and
+// containing none of the excluded fragments (e.g. "/test/"). Used as the filter of the tree walks and
+// of the diff scans, so excluded subtrees are skipped and their blobs are never loaded
+public class SourcePathFilter extends TreeFilter {
+
+    private final List<String> suffixes;
+    private final List<String> excludedFragments;
+
+    public SourcePathFilter(List<String> suffixes, List<String> excludedFragments) {
+        this.suffixes = List.copyOf(suffixes);
+        this.excludedFragments = List.copyOf(excludedFragments);
+    }
+
+    public static SourcePathFilter fromSettings() {
+        return new SourcePathFilter(PipelineSettings.getSourceSuffixes(), PipelineSettings.getExcludedPathFragments());
+    }
+
+    public boolean matches(String path) {
+        return hasSourceSuffix(path) && !isExcluded(path);
+    }
+
+    @Override
+    public boolean include(TreeWalk walker) {
+        if (walker.isSubtree()) {
+            // Every path below the directory starts with "directory/": if that already contains an
+            // excluded fragment, nothing below can match
+            return !isExcluded(walker.getPathString() + "/");
+        }
+        return matches(walker.getPathString());
+    }
+
+    private boolean hasSourceSuffix(String path) {
+        for (String suffix : suffixes) {
+            if (path.endsWith(suffix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isExcluded(String path) {
+        for (String fragment : excludedFragments) {
+            if (path.contains(fragment)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean shouldBeRecursive() {
+        return true;
+    }
+
+    @Override
+    public TreeFilter clone() {
+        return this; // Stateless
+    }
+
+    @Override
+    public String toString() {
+        return "SourcePathFilter(" + suffixes + ", excluding " + excludedFragments + ")";
+    }
+}
@@ -0,0 +1,52 @@
+package utils;
+
+// 64-bit FNV-1a fingerprint of a token stream. Every token is one unit, except operators and
+// separators that are fed one character per unit, so the result does not depend on how a lexer
+// groups them (e.g. ">>" closing two type arguments). Units are delimited, so "a b" and "ab" differ
+public class TokenFingerprint {
+
+    // Fingerprint of a method without a body
+    public static final long ABSENT_BODY = 0L;
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    // Outside the char range, so it never collides with the content of a unit
+    private static final int UNIT_SEPARATOR = 0x10000;
+
+    private long hash;
+
+    public TokenFingerprint() {
+        this.hash = FNV_OFFSET_BASIS;
+    }
+
+    public void addUnit(CharSequence text, int start, int end) {
+        for (int i = start; i < end; i++) {
+            mix(text.charAt(i));
+        }
+        mix(UNIT_SEPARATOR);
+    }
+
+    public void addUnit(CharSequence text) {
+        addUnit(text, 0, text.length());
+    }
+
+    public void addPunctuation(CharSequence text, int start, int end) {
+        for (int i = start; i < end; i++) {
+            mix(text.charAt(i));
+            mix(UNIT_SEPARATOR);
+        }
+    }
+
+    public void addPunctuation(CharSequence text) {
+        addPunctuation(text, 0, text.length());
+    }
+
+    private void mix(int value) {
+        hash ^= value;
+        hash *= FNV_PRIME;
+    }
+
+    public long get() {
+        return hash;
+    }
+}
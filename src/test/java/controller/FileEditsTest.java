@@ -0,0 +1,47 @@
+package controller;
+
+import junit.framework.TestCase;
+import model.ScannedMethod;
+import utils.GitUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+
+// The edits must give the same answers whatever the line endings of the file, lone '\r' included
+public class FileEditsTest extends TestCase {
+
+    private static final String OLD = "class A {\n    int kept() {\n        return 1;\n    }\n\n"
+            + "    int edited() {\n        int x = 1;\n        return x;\n    }\n}\n";
+    private static final String NEW = "class A {\n    int kept() {\n        return 1;\n    }\n\n"
+            + "    int edited() {\n        int x = 2;\n        int y = 3;\n        return x + y;\n    }\n\n"
+            + "    int added() {\n        return 0;\n    }\n}\n";
+
+    public void testLoneCarriageReturnsGiveTheEditsOfLineFeeds() {
+        int[] lineFeeds = countEdits("\n");
+        assertEquals(0, lineFeeds[0]);
+        assertEquals(0, lineFeeds[1]);
+        // Where the diff puts the closing braces around the insertion is its choice, so only the kept lines are exact
+        assertTrue(lineFeeds[2] >= 3);
+        assertTrue(lineFeeds[3] >= 2);
+        assertTrue(lineFeeds[4] > 0);
+
+        assertTrue(Arrays.equals(lineFeeds, countEdits("\r\n")));
+        assertTrue(Arrays.equals(lineFeeds, countEdits("\r")));
+    }
+
+    // Added and deleted lines of kept() and edited(), then the added lines of added()
+    private static int[] countEdits(String lineBreak) {
+        String oldText = OLD.replace("\n", lineBreak);
+        String newText = NEW.replace("\n", lineBreak);
+        Map<String, ScannedMethod> oldMethods = GitUtils.scanMethods(oldText);
+        Map<String, ScannedMethod> newMethods = GitUtils.scanMethods(newText);
+        FileEdits edits = FileEdits.compute(oldText.getBytes(StandardCharsets.UTF_8), newText.getBytes(StandardCharsets.UTF_8));
+
+        assertTrue(lineBreak, edits.isUnchanged(newMethods.get("kept()"), oldMethods.get("kept()")));
+        assertFalse(lineBreak, edits.isUnchanged(newMethods.get("edited()"), oldMethods.get("edited()")));
+        return new int[]{edits.countAddedLines(newMethods.get("kept()")), edits.countDeletedLines(oldMethods.get("kept()")),
+                edits.countAddedLines(newMethods.get("edited()")), edits.countDeletedLines(oldMethods.get("edited()")),
+                edits.countAddedLines(newMethods.get("added()"))};
+    }
+}
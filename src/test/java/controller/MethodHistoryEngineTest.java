@@ -0,0 +1,282 @@
+package controller;
+
+import junit.framework.TestCase;
+import model.*;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import utils.HistoryCheckpoint;
+import utils.MethodCache;
+import utils.GitUtils;
+import utils.SourcePathFilter;
+import utils.TempGitRepo;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.*;
+
+// The history pass bounded to the commits that can change a method must give the same labels and
+// metrics as the visit of every commit. The history has commits after the newest release with
+// methods, fix commits of tickets injected before and after it, and a commit outside every release
+public class MethodHistoryEngineTest extends TestCase {
+
+    private static final String FILE = "src/main/java/app/Service.java";
+
+    private TempGitRepo repo;
+    private final List<Release> releases = new ArrayList<>();
+    private final Map<String, RevCommit> commitsByName = new HashMap<>();
+    private CommitTable commitTable;
+    private ReleaseTimeline releaseTimeline;
+    private List<Release> methodReleases;
+
+    @Override
+    protected void setUp() throws Exception {
+        repo = new TempGitRepo("history-engine-test");
+
+        commit("init", "Ann", LocalDate.of(2021, 1, 5), service("return 1;", "return 2;", null));
+        commit("a1", "Ann", LocalDate.of(2021, 1, 20), service("int x = 1;\n        return x + 1;", "return 2;", null));
+        commit("b1", "Bob", LocalDate.of(2021, 2, 10), service("int x = 1;\n        return x + 1;", "return 3;", "return 0;"));
+        commit("fix1", "Bob", LocalDate.of(2021, 2, 20), service("return 5;", "return 3;", "return 0;"));
+        commit("b2", "Ann", LocalDate.of(2021, 2, 25), service("return 5;", "int z = 3;\n        return z;", "return 0;"));
+        commit("late", "Cid", LocalDate.of(2021, 3, 10), service("return 6;", "int z = 3;\n        return z;", "int y = 2;\n        return y;"));
+        commit("fix2", "Ann", LocalDate.of(2021, 3, 15), service("return 6;", "return 4;", "int y = 2;\n        return y;"));
+        commit("fix3", "Cid", LocalDate.of(2021, 4, 10), service("return 6;", "return 4;", "return 7;"));
+        commit("outside", "Bob", LocalDate.of(2021, 6, 1), service("return 8;", "return 9;", "return 7;"));
+
+        releases.add(new Release("1.0", LocalDate.of(2021, 1, 31)));
+        releases.add(new Release("2.0", LocalDate.of(2021, 2, 28)));
+        releases.add(new Release("3.0", LocalDate.of(2021, 3, 31)));
+        releases.add(new Release("4.0", LocalDate.of(2021, 4, 30)));
+        for (int i = 0; i < releases.size(); i++) {
+            releases.get(i).setId(i + 1);
+        }
+
+        CommitTable.Builder builder = new CommitTable.Builder();
+        try (RevWalk revWalk = new RevWalk(repo.getRepository())) {
+            revWalk.markStart(revWalk.parseCommit(repo.getRepository().resolve("HEAD")));
+            for (RevCommit commit : revWalk) {
+                builder.add(commit);
+            }
+        }
+        commitTable = builder.build();
+        releaseTimeline = new ReleaseTimeline(releases);
+        for (int commit = 0; commit < commitTable.size(); commit++) {
+            for (Release release : releaseTimeline.getReleasesContainingDay(commitTable.getCommitDay(commit))) {
+                release.addCommit(commit);
+            }
+        }
+        // The methods come from the first two releases, as with the analysis window
+        methodReleases = releases.subList(0, 2);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        repo.close();
+    }
+
+    public void testBoundedPassMatchesUnboundedPass() throws Exception {
+        List<JavaMethod> bounded = runHistoryPass(true, true);
+        List<JavaMethod> unbounded = runHistoryPass(false, true);
+
+        assertFalse(bounded.isEmpty());
+        assertTrue("Some method should be buggy", bounded.stream().anyMatch(JavaMethod::isBuggy));
+        assertTrue("Some method should have a fix", bounded.stream().anyMatch(m -> m.getNFix() > 0));
+        assertEquals(unbounded.size(), bounded.size());
+        for (int i = 0; i < bounded.size(); i++) {
+            assertSameHistory(unbounded.get(i), bounded.get(i));
+        }
+    }
+
+    public void testFixCommitsOnlyPassGivesSameLabels() throws Exception {
+        List<JavaMethod> full = runHistoryPass(true, true);
+        List<JavaMethod> bounded = runHistoryPass(true, false);
+        List<JavaMethod> unbounded = runHistoryPass(false, false);
+
+        assertEquals(full.size(), bounded.size());
+        for (int i = 0; i < full.size(); i++) {
+            assertEquals(full.get(i).toString(), full.get(i).isBuggy(), bounded.get(i).isBuggy());
+            assertEquals(full.get(i).toString(), unbounded.get(i).isBuggy(), bounded.get(i).isBuggy());
+            assertEquals(0, bounded.get(i).getNumRevisions());
+        }
+    }
+
+    public void testBoundSkipsCommitsThatChangeNoMethod() throws Exception {
+        MethodHistoryEngine engine = createEngine(extractMethods(), true);
+        int[] selected = engine.selectCommitsAffectingMethods();
+
+        Set<String> selectedNames = new HashSet<>();
+        for (int commit : selected) {
+            selectedNames.add(nameOf(commit));
+        }
+        // late is after the newest release with methods, fix3 fixes a ticket injected after it and
+        // outside is after every release
+        assertEquals(new HashSet<>(Arrays.asList("init", "a1", "b1", "fix1", "b2", "fix2")), selectedNames);
+    }
+
+    public void testNFixCountsOnlyTheCommitsOfTheTicketsGiven() throws Exception {
+        List<JavaMethod> methods = runHistoryPass(true, true);
+        assertTrue(methods.stream().anyMatch(m -> m.getNFix() > 0));
+
+        // A ticket dropped after its commits were linked no longer makes them fixes; fix3 is after every snapshot
+        List<Ticket> lastTicketOnly = createTickets().subList(2, 3);
+        MetricCalculator.calculateNFix(methods, lastTicketOnly, commitTable, methodReleases);
+        for (JavaMethod method : methods) {
+            assertEquals(method.toString(), 0, method.getNFix());
+        }
+    }
+
+    public void testPassWithoutCheckpointGivesSameHistory() throws Exception {
+        List<JavaMethod> withCheckpoint = runHistoryPass(true, true);
+        List<JavaMethod> methods = extractMethods();
+        createEngine(methods, true, null).process();
+        MetricCalculator.calculateNFix(methods, createTickets(), commitTable, methodReleases);
+
+        assertEquals(withCheckpoint.size(), methods.size());
+        for (int i = 0; i < methods.size(); i++) {
+            assertSameHistory(withCheckpoint.get(i), methods.get(i));
+        }
+    }
+
+    public void testFixCommitsOnlyPassKeepsTheCheckpoint() throws Exception {
+        Path checkpointFile = repo.newFile("checkpoint", ".bin");
+        createEngine(extractMethods(), true, new HistoryCheckpoint(checkpointFile, "test")).process();
+        HistoryCheckpoint full = new HistoryCheckpoint(checkpointFile, "test");
+        full.load();
+        assertTrue(full.size() > 0);
+
+        // It visits only the fix commits, which must not replace the full history on disk
+        HistoryCheckpoint reused = new HistoryCheckpoint(checkpointFile, "test");
+        reused.load();
+        createEngine(extractMethods(), false, reused).process();
+        HistoryCheckpoint afterFixPass = new HistoryCheckpoint(checkpointFile, "test");
+        afterFixPass.load();
+        assertEquals(full.size(), afterFixPass.size());
+    }
+
+    public void testMethodsOutsideTheEditsAreNeverMeasured() throws Exception {
+        String oldSource = service("return 1;", "return 2;", null);
+        String newSource = service("return 1;", "int z = 3;\n        return z;", "return 0;");
+        Map<String, ScannedMethod> oldMethods = GitUtils.scanMethods(oldSource);
+        Map<String, ScannedMethod> newMethods = GitUtils.scanMethods(newSource);
+        FileEdits fileEdits = FileEdits.compute(oldSource.getBytes(StandardCharsets.UTF_8), newSource.getBytes(StandardCharsets.UTF_8));
+
+        List<MethodChange> changes = new ArrayList<>();
+        createEngine(extractMethods(), true).addChangedMethods(FILE, oldMethods, newMethods, fileEdits, changes);
+
+        Set<String> changed = new HashSet<>();
+        for (MethodChange change : changes) {
+            changed.add(change.getFullyQualifiedName());
+        }
+        assertEquals(new HashSet<>(Arrays.asList(FILE + "/second()", FILE + "/third(String)")), changed);
+        assertFalse(oldMethods.get("first(int)").isMeasured());
+        assertFalse(newMethods.get("first(int)").isMeasured());
+        assertTrue(newMethods.get("second()").isMeasured());
+    }
+
+    private List<JavaMethod> runHistoryPass(boolean bounded, boolean historyMetrics) throws Exception {
+        List<JavaMethod> methods = extractMethods();
+        MethodHistoryEngine engine = createEngine(methods, historyMetrics);
+        engine.setBoundedToAffectingCommits(bounded);
+        engine.process();
+        if (historyMetrics) {
+            MetricCalculator.calculateNFix(methods, createTickets(), commitTable, methodReleases);
+        }
+        return methods;
+    }
+
+    private MethodHistoryEngine createEngine(List<JavaMethod> methods, boolean historyMetrics) {
+        // Every pass starts from an empty checkpoint, so all its commits are visited
+        return createEngine(methods, historyMetrics, new HistoryCheckpoint(repo.newFile("checkpoint", ".bin"), "test"));
+    }
+
+    private MethodHistoryEngine createEngine(List<JavaMethod> methods, boolean historyMetrics, HistoryCheckpoint checkpoint) {
+        return new MethodHistoryEngine(repo.getRepository(), checkpoint, commitTable, new SourcePathFilter(List.of(".java"), List.of("/test/")),
+                releaseTimeline, methods, createTickets(), historyMetrics);
+    }
+
+    // Fresh tickets for each pass, with their fix commits
+    private List<Ticket> createTickets() {
+        Release r1 = releases.get(0);
+        Release r2 = releases.get(1);
+        Release r3 = releases.get(2);
+        Release r4 = releases.get(3);
+
+        Ticket injectedInFirst = new Ticket("T-1", LocalDate.of(2021, 2, 1), LocalDate.of(2021, 2, 25), r1, r2, r2, List.of(r1));
+        Ticket injectedInSecond = new Ticket("T-2", LocalDate.of(2021, 3, 1), LocalDate.of(2021, 3, 20), r2, r3, r3, List.of(r2));
+        Ticket injectedAfterMethods = new Ticket("T-3", LocalDate.of(2021, 4, 1), LocalDate.of(2021, 4, 20), r3, r4, r4, List.of(r3));
+        addFixCommit(injectedInFirst, "fix1");
+        addFixCommit(injectedInSecond, "fix2");
+        addFixCommit(injectedAfterMethods, "fix3");
+        return List.of(injectedInFirst, injectedInSecond, injectedAfterMethods);
+    }
+
+    private void addFixCommit(Ticket ticket, String name) {
+        for (int commit = 0; commit < commitTable.size(); commit++) {
+            if (commitTable.getId(commit).equals(commitsByName.get(name))) {
+                ticket.addCommit(commit);
+            }
+        }
+    }
+
+    private String nameOf(int commit) {
+        for (Map.Entry<String, RevCommit> entry : commitsByName.entrySet()) {
+            if (entry.getValue().equals(commitTable.getId(commit))) {
+                return entry.getKey();
+            }
+        }
+        return null;
+    }
+
+    private List<JavaMethod> extractMethods() throws Exception {
+        Map<Release, RevCommit> snapshotCommits = new LinkedHashMap<>();
+        try (RevWalk revWalk = new RevWalk(repo.getRepository())) {
+            for (Release release : methodReleases) {
+                snapshotCommits.put(release, revWalk.parseCommit(commitTable.getId(release.getCommits().last())));
+            }
+        }
+        MethodCache methodCache = new MethodCache(repo.newFile("methodCache", ".bin"));
+        return new ReleaseSnapshotExtractor(repo.getRepository(), methodCache, new SourcePathFilter(List.of(".java"), List.of("/test/")))
+                .extract(snapshotCommits);
+    }
+
+    private static void assertSameHistory(JavaMethod expected, JavaMethod actual) {
+        String method = expected.toString();
+        assertEquals(method, expected.getFullyQualifiedName(), actual.getFullyQualifiedName());
+        assertEquals(method, expected.getRelease().getId(), actual.getRelease().getId());
+        assertEquals(method, expected.isBuggy(), actual.isBuggy());
+        assertEquals(method, expected.getNumRevisions(), actual.getNumRevisions());
+        assertEquals(method, expected.getNumAuthors(), actual.getNumAuthors());
+        assertEquals(method, expected.getTotalStmtAdded(), actual.getTotalStmtAdded());
+        assertEquals(method, expected.getTotalStmtDeleted(), actual.getTotalStmtDeleted());
+        assertEquals(method, expected.getMaxChurnInARevision(), actual.getMaxChurnInARevision());
+        assertEquals(method, expected.getAvgChurn(), actual.getAvgChurn(), 0.0);
+        assertEquals(method, expected.getNFix(), actual.getNFix());
+        assertEquals(method, toList(expected.getCommits()), toList(actual.getCommits()));
+        assertEquals(method, toList(expected.getFixCommits()), toList(actual.getFixCommits()));
+    }
+
+    private static List<Integer> toList(CommitSet commits) {
+        List<Integer> list = new ArrayList<>();
+        for (int k = 0; k < commits.size(); k++) {
+            list.add(commits.get(k));
+        }
+        return list;
+    }
+
+    private void commit(String name, String author, LocalDate day, String content) throws Exception {
+        // At noon, so the day of the commit is the same in every time zone offset of a few hours
+        commitsByName.put(name, repo.commit(FILE, content, name, author, day.atTime(12, 0).atZone(ZoneId.systemDefault()).toInstant()));
+    }
+
+    // A third method appears when its body is given
+    private static String service(String first, String second, String third) {
+        StringBuilder source = new StringBuilder("package app;\n\npublic class Service {\n\n");
+        source.append("    public int first(int a) {\n        ").append(first).append("\n    }\n\n");
+        source.append("    public int second() {\n        ").append(second).append("\n    }\n");
+        if (third != null) {
+            source.append("\n    public int third(String s) {\n        ").append(third).append("\n    }\n");
+        }
+        return source.append("}\n").toString();
+    }
+}
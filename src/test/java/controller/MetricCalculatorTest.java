@@ -0,0 +1,96 @@
+package controller;
+
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ParserConfiguration;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import junit.framework.TestCase;
+import model.ScannedMethod;
+import utils.GitUtils;
+import utils.MethodScanner;
+
+import java.util.List;
+
+// The LOC of a method counts the lines of its body holding code: comments, blank lines and lines with
+// only braces are left out. The parser and the scanner must give the same count
+public class MetricCalculatorTest extends TestCase {
+
+    public void testCommentOnlyLinesAreNotCounted() {
+        assertLOC(2,
+                "int m() {\n" +
+                "    // a comment\n" +
+                "    /* a block\n" +
+                "       comment */\n" +
+                "\n" +
+                "    int a = 1; // trailing\n" +
+                "    /** doc */\n" +
+                "    return a;\n" +
+                "}");
+    }
+
+    public void testElseBetweenBracesIsCounted() {
+        assertLOC(4,
+                "int m(boolean c) {\n" +
+                "    if (c) {\n" +
+                "        return 1;\n" +
+                "    } else {\n" +
+                "        return 2;\n" +
+                "    }\n" +
+                "}");
+    }
+
+    public void testLoneBracesAreNotCounted() {
+        assertLOC(2,
+                "void m() {\n" +
+                "    {\n" +
+                "        run();\n" +
+                "    }\n" +
+                "    {\n" +
+                "    }\n" +
+                "    run();\n" +
+                "}");
+    }
+
+    public void testWrappedStatementCountsEveryLine() {
+        assertLOC(2,
+                "int m(int a) {\n" +
+                "    return a\n" +
+                "        + 1;\n" +
+                "}");
+    }
+
+    public void testTextBlockCountsAllItsLines() {
+        String source = "class T {\n" +
+                "    String m() {\n" +
+                "        String s = \"\"\"\n" +
+                "            one\n" +
+                "\n" +
+                "            two\n" +
+                "            \"\"\";\n" +
+                "        return s;\n" +
+                "    }\n" +
+                "}\n";
+        // The language level of the pipeline does not accept text blocks, so the count is read with a newer one
+        ParserConfiguration configuration = new ParserConfiguration()
+                .setLanguageLevel(ParserConfiguration.LanguageLevel.JAVA_17);
+        CompilationUnit cu = new JavaParser(configuration).parse(source).getResult().orElseThrow();
+        assertEquals(6, MetricCalculator.calculateLOC(cu.findFirst(MethodDeclaration.class).orElseThrow()));
+
+        // The scanner leaves text blocks to the parser fallback, which finds no methods at its level
+        assertNull(MethodScanner.scan(source));
+        assertTrue(GitUtils.parseMethods(source).isEmpty());
+    }
+
+    // The same method with every line ending: LF, CRLF and CR only
+    private static void assertLOC(int expected, String method) {
+        String lf = "class T {\n" + method + "\n}\n";
+        for (String source : new String[]{lf, lf.replace("\n", "\r\n"), lf.replace("\n", "\r")}) {
+            MethodDeclaration md = GitUtils.parseCompilationUnit(source).findFirst(MethodDeclaration.class).orElseThrow();
+            assertEquals(expected, MetricCalculator.calculateLOC(md));
+
+            List<ScannedMethod> scanned = MethodScanner.scan(source);
+            assertNotNull(scanned);
+            assertEquals(expected, scanned.get(0).getLoc());
+        }
+    }
+}
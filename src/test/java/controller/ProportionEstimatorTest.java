@@ -0,0 +1,75 @@
+package controller;
+
+import junit.framework.TestCase;
+import utils.JIRAUtils;
+import utils.ProportionMethod;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class ProportionEstimatorTest extends TestCase {
+
+    public void testEmptyEstimatorsGiveZero() {
+        for (ProportionMethod method : ProportionMethod.values()) {
+            ProportionEstimator estimator = ProportionEstimator.create(method, 3);
+            assertEquals(method.toString(), 0.0f, estimator.estimate(), 0.0f);
+            assertEquals(method.toString(), 0, estimator.size());
+        }
+    }
+
+    public void testRunningMeanIsTheMeanOfAllProportions() {
+        ProportionEstimator estimator = new ProportionEstimator.RunningMean();
+        estimator.add(1.0f);
+        estimator.add(2.0f);
+        estimator.add(6.0f);
+        assertEquals(3.0f, estimator.estimate(), 1e-6f);
+        assertEquals(3, estimator.size());
+    }
+
+    public void testWindowMeanEvictsTheOldestProportions() {
+        ProportionEstimator estimator = new ProportionEstimator.WindowMean(3);
+        estimator.add(1.0f);
+        estimator.add(2.0f);
+        assertEquals(1.5f, estimator.estimate(), 1e-6f);
+        estimator.add(3.0f);
+        assertEquals(2.0f, estimator.estimate(), 1e-6f);
+
+        // 1 leaves the window, then 2
+        estimator.add(10.0f);
+        assertEquals(5.0f, estimator.estimate(), 1e-6f);
+        estimator.add(5.0f);
+        assertEquals(6.0f, estimator.estimate(), 1e-6f);
+
+        // The size counts every proportion added, for the cold-start threshold
+        assertEquals(5, estimator.size());
+    }
+
+    public void testStreamingMedianMatchesMedianOnOddAndEvenCounts() {
+        Random random = new Random(42);
+        ProportionEstimator estimator = new ProportionEstimator.StreamingMedian();
+        List<Float> proportions = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            // Repeated values as well, as the real proportions have
+            float proportion = random.nextInt(4) == 0 ? 1.0f : random.nextInt(40) / 8.0f;
+            estimator.add(proportion);
+            proportions.add(proportion);
+
+            // median sorts its argument
+            assertEquals("after " + proportions.size() + " proportions", JIRAUtils.median(new ArrayList<>(proportions)),
+                    estimator.estimate(), 0.0f);
+            assertEquals(proportions.size(), estimator.size());
+        }
+    }
+
+    public void testStreamingMedianAveragesTheMiddleOfAnEvenCount() {
+        ProportionEstimator estimator = new ProportionEstimator.StreamingMedian();
+        estimator.add(4.0f);
+        estimator.add(1.0f);
+        assertEquals(2.5f, estimator.estimate(), 0.0f);
+        estimator.add(3.0f);
+        assertEquals(3.0f, estimator.estimate(), 0.0f);
+        estimator.add(2.0f);
+        assertEquals(2.5f, estimator.estimate(), 0.0f);
+    }
+}
@@ -0,0 +1,68 @@
+package controller;
+
+import junit.framework.TestCase;
+import model.Release;
+import model.Ticket;
+import utils.ProportionMethod;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+// Every ticket is opened in release 19 and fixed in 20, so its proportion is 20 - IV. The window of
+// the WINDOW method is the default one, 10 tickets
+public class ProportionEvaluationTest extends TestCase {
+
+    private final List<Release> releases = new ArrayList<>();
+
+    @Override
+    protected void setUp() {
+        for (int id = 1; id <= 20; id++) {
+            Release release = new Release(String.valueOf(id), LocalDate.of(2020, 1, 1).plusMonths(id));
+            release.setId(id);
+            releases.add(release);
+        }
+    }
+
+    public void testNoBestMethodBeforeTheColdStartThreshold() {
+        ProportionEvaluation evaluation = new ProportionEvaluation();
+        for (int i = 0; i < Proportion.THRESHOLD_COLD_START; i++) {
+            evaluation.addTicket(ticketWithProportion(1));
+        }
+        assertNull(evaluation.getBestMethod());
+    }
+
+    public void testMedianWinsWithOutliers() {
+        ProportionEvaluation evaluation = new ProportionEvaluation();
+        for (int proportion : new int[]{1, 1, 15, 1, 1, 1, 1, 1, 1, 1}) {
+            evaluation.addTicket(ticketWithProportion(proportion));
+        }
+        assertEquals(ProportionMethod.MEDIAN, evaluation.getBestMethod());
+    }
+
+    public void testWindowWinsWhenTheProportionsDrift() {
+        ProportionEvaluation evaluation = new ProportionEvaluation();
+        for (int i = 0; i < 10; i++) {
+            evaluation.addTicket(ticketWithProportion(1));
+        }
+        for (int i = 0; i < 15; i++) {
+            evaluation.addTicket(ticketWithProportion(4));
+        }
+        assertEquals(ProportionMethod.WINDOW, evaluation.getBestMethod());
+    }
+
+    public void testTiesGoToTheDefaultMethod() {
+        ProportionEvaluation evaluation = new ProportionEvaluation();
+        for (int i = 0; i < 8; i++) {
+            evaluation.addTicket(ticketWithProportion(2));
+        }
+        assertEquals(ProportionMethod.INCREMENT, evaluation.getBestMethod());
+    }
+
+    private Ticket ticketWithProportion(int proportion) {
+        Release iv = releases.get(20 - proportion - 1);
+        Release ov = releases.get(18);
+        Release fv = releases.get(19);
+        return new Ticket("T", iv.getDate(), fv.getDate(), iv, ov, fv, new ArrayList<>(List.of(iv)));
+    }
+}
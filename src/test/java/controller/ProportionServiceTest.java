@@ -0,0 +1,70 @@
+package controller;
+
+import junit.framework.TestCase;
+import model.Release;
+import model.Ticket;
+import utils.TempDirectory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// The cold start of the project being extracted comes from the tickets the extraction has fetched:
+// no JIRA request is made (none could succeed here)
+public class ProportionServiceTest extends TestCase {
+
+    private final List<Release> releases = new ArrayList<>();
+    private TempDirectory tempDirectory;
+    private Path tableFile;
+
+    @Override
+    protected void setUp() throws IOException {
+        for (int id = 1; id <= 5; id++) {
+            Release release = new Release(String.valueOf(id), LocalDate.of(2020, 1, 1).plusMonths(id));
+            release.setId(id);
+            releases.add(release);
+        }
+        tempDirectory = new TempDirectory("proportion-service-test");
+        tableFile = tempDirectory.newFile("proportions", ".csv");
+    }
+
+    @Override
+    protected void tearDown() throws IOException {
+        tempDirectory.close();
+    }
+
+    public void testFetchedTicketsGiveTheColdStart() throws IOException {
+        List<Ticket> tickets = new ArrayList<>();
+        // Opened in 3, fixed in 5, injected in 1: proportion (5 - 1) / (5 - 3) = 2
+        for (int i = 0; i < Proportion.THRESHOLD_COLD_START; i++) {
+            tickets.add(ticket(releases.get(0)));
+        }
+        Ticket withoutAv = ticket(null);
+        tickets.add(withoutAv);
+
+        ProportionService service = new ProportionService(tableFile, Duration.ZERO, false, Collections.emptyList());
+        service.addFetchedTickets("test", tickets);
+        // As the extraction does afterwards: the ticket without AV gets an estimated IV
+        withoutAv.setIv(releases.get(3));
+        withoutAv.addAv(releases.get(3));
+
+        assertEquals(2f, service.getColdStartProportion("TEST"));
+        List<String> table = Files.readAllLines(tableFile, StandardCharsets.UTF_8);
+        assertEquals(2, table.size());
+        assertTrue(table.get(1), table.get(1).startsWith("TEST,2.0," + Proportion.THRESHOLD_COLD_START + ","));
+    }
+
+    private Ticket ticket(Release iv) {
+        List<Release> av = new ArrayList<>();
+        if (iv != null) {
+            av.add(iv);
+        }
+        return new Ticket("TEST-1", releases.get(2).getDate(), releases.get(4).getDate(), iv, releases.get(2), releases.get(4), av);
+    }
+}
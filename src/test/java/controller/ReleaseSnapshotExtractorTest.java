@@ -0,0 +1,102 @@
+package controller;
+
+import junit.framework.TestCase;
+import model.JavaMethod;
+import model.Release;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.revwalk.RevCommit;
+import utils.MethodCache;
+import utils.SourcePathFilter;
+import utils.TempGitRepo;
+
+import java.time.LocalDate;
+import java.util.*;
+
+// The blobs reported as reused and parsed are the ones of the snapshots of this extraction: the entries
+// the method cache already held for other files or other releases are not counted
+public class ReleaseSnapshotExtractorTest extends TestCase {
+
+    private static final String SERVICE = "src/main/java/app/Service.java";
+    private static final String REPORT = "src/main/java/app/Report.java";
+
+    private TempGitRepo repo;
+    private Release first;
+    private Release second;
+    private RevCommit firstSnapshot;
+    private RevCommit secondSnapshot;
+
+    @Override
+    protected void setUp() throws Exception {
+        repo = new TempGitRepo("snapshot-extractor-test");
+
+        // Service is the same blob in both snapshots, Report changes
+        repo.write(SERVICE, source("Service", "return 1;"));
+        firstSnapshot = repo.commit(REPORT, source("Report", "return 2;"), "first");
+        secondSnapshot = repo.commit(REPORT, source("Report", "return 3;"), "second");
+
+        first = new Release("1.0", LocalDate.of(2021, 1, 31));
+        first.setId(1);
+        second = new Release("2.0", LocalDate.of(2021, 2, 28));
+        second.setId(2);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        repo.close();
+    }
+
+    public void testDistinctBlobsOfTheSnapshotsAreParsedOnce() throws Exception {
+        ReleaseSnapshotExtractor extractor = createExtractor(createCache());
+        List<JavaMethod> methods = extractor.extract(snapshots(true, true));
+
+        assertEquals(4, methods.size());
+        assertEquals(0, extractor.getReusedBlobs());
+        assertEquals(3, extractor.getParsedBlobs());
+    }
+
+    public void testOnlyTheBlobsLookedUpAreReused() throws Exception {
+        MethodCache methodCache = createCache();
+        createExtractor(methodCache).extract(snapshots(true, true));
+        // A blob that is in no snapshot, as left by a deleted file
+        methodCache.put(ObjectId.zeroId(), new ArrayList<>());
+        assertEquals(4, methodCache.size());
+
+        ReleaseSnapshotExtractor extractor = createExtractor(methodCache);
+        extractor.extract(snapshots(false, true));
+        assertEquals(2, extractor.getReusedBlobs());
+        assertEquals(0, extractor.getParsedBlobs());
+    }
+
+    public void testNewSnapshotParsesOnlyItsChangedBlobs() throws Exception {
+        MethodCache methodCache = createCache();
+        createExtractor(methodCache).extract(snapshots(true, false));
+
+        ReleaseSnapshotExtractor extractor = createExtractor(methodCache);
+        extractor.extract(snapshots(true, true));
+        assertEquals(2, extractor.getReusedBlobs());
+        assertEquals(1, extractor.getParsedBlobs());
+    }
+
+    private Map<Release, RevCommit> snapshots(boolean withFirst, boolean withSecond) {
+        Map<Release, RevCommit> snapshotCommits = new LinkedHashMap<>();
+        if (withFirst) {
+            snapshotCommits.put(first, firstSnapshot);
+        }
+        if (withSecond) {
+            snapshotCommits.put(second, secondSnapshot);
+        }
+        return snapshotCommits;
+    }
+
+    private MethodCache createCache() {
+        return new MethodCache(repo.newFile("methodCache", ".bin"));
+    }
+
+    private ReleaseSnapshotExtractor createExtractor(MethodCache methodCache) {
+        return new ReleaseSnapshotExtractor(repo.getRepository(), methodCache, new SourcePathFilter(List.of(".java"), List.of("/test/")));
+    }
+
+    private static String source(String className, String body) {
+        return "package app;\n\npublic class " + className + " {\n\n    public int value() {\n        " + body + "\n    }\n}\n";
+    }
+}
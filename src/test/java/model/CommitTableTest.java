@@ -0,0 +1,53 @@
+package model;
+
+import junit.framework.TestCase;
+import org.eclipse.jgit.revwalk.RevCommit;
+import utils.TempGitRepo;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// The firstCommit column of Methods.csv keeps the text the baseline wrote for a commit of git log
+public class CommitTableTest extends TestCase {
+
+    private TempGitRepo repo;
+
+    @Override
+    protected void setUp() throws Exception {
+        repo = new TempGitRepo("commit-table-test");
+        for (int i = 0; i < 3; i++) {
+            repo.commit("A.java", "class A { int v = " + i + "; }\n", "commit " + i);
+        }
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        repo.close();
+    }
+
+    public void testDescribeKeepsTheBaselineText() throws Exception {
+        List<RevCommit> logCommits = new ArrayList<>();
+        CommitTable.Builder builder = new CommitTable.Builder();
+        for (RevCommit commit : repo.getGit().log().all().call()) {
+            logCommits.add(commit);
+            builder.add(commit);
+        }
+        CommitTable commitTable = builder.build();
+
+        assertEquals(3, commitTable.size());
+        for (RevCommit commit : logCommits) {
+            int index = indexOf(commitTable, commit);
+            assertTrue(index >= 0);
+            assertEquals("commit " + commit.getName() + " " + commit.getCommitTime() + " -----sp", commitTable.describe(index));
+        }
+    }
+
+    private static int indexOf(CommitTable commitTable, RevCommit commit) {
+        for (int i = 0; i < commitTable.size(); i++) {
+            if (commitTable.getId(i).equals(commit)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,196 @@
+package model;
+
+import com.github.javaparser.ast.body.ConstructorDeclaration;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.stmt.BlockStmt;
+import controller.MetricCalculator;
+import junit.framework.TestCase;
+import utils.GitUtils;
+
+// The rules of the branch, nesting and smell metrics, on bodies whose values are counted by hand
+public class MethodMetricsVisitorTest extends TestCase {
+
+    public void testBranchesCountDecisionsAndTheirLogicalOperators() {
+        MethodMetricsVisitor visitor = visit(
+                "int m(int a, int b) {\n" +
+                "    if (a > 0 && b > 0 || a < -5) {\n" +             // if, &&, ||
+                "        for (int i = 0; i < a && i < b; i++) {\n" +  // for, &&
+                "            while (b > i) {\n" +                     // while
+                "                b--;\n" +
+                "            }\n" +
+                "        }\n" +
+                "    } else if (a == 0) {\n" +                        // if
+                "        return b > 0 ? 1 : 0;\n" +                   // ?:
+                "    }\n" +
+                "    do {\n" +                                        // do, ||
+                "        a++;\n" +
+                "    } while (a < 0 || b < 0);\n" +
+                "    for (int x : new int[]{a}) {\n" +                // for-each
+                "        a += x;\n" +
+                "    }\n" +
+                "    switch (a) {\n" +                                // two labelled entries, not the default
+                "        case 1:\n" +
+                "            break;\n" +
+                "        case 2:\n" +
+                "            break;\n" +
+                "        default:\n" +
+                "            break;\n" +
+                "    }\n" +
+                "    synchronized (this) {\n" +                       // no decision
+                "        a++;\n" +
+                "    }\n" +
+                "    return a;\n" +
+                "}");
+        assertEquals(13, visitor.getBranchCount());
+        // if > for > while
+        assertEquals(3, visitor.getMaxDepth());
+    }
+
+    public void testCatchClausesAreBranchesAndNestInTheirTry() {
+        MethodMetricsVisitor visitor = visit(
+                "void m() {\n" +
+                "    try {\n" +
+                "        run();\n" +
+                "    } catch (IllegalStateException e) {\n" +
+                "        if (e.getMessage() != null) {\n" +
+                "            log(e);\n" +
+                "        }\n" +
+                "    } catch (RuntimeException e) {\n" +
+                "        log(e);\n" +
+                "    } finally {\n" +
+                "        close();\n" +
+                "    }\n" +
+                "}");
+        // Two catch clauses and the if
+        assertEquals(3, visitor.getBranchCount());
+        // try > catch > if
+        assertEquals(3, visitor.getMaxDepth());
+    }
+
+    public void testTryResourcesCountForBranchesButNotForNesting() {
+        MethodMetricsVisitor visitor = visit(
+                "void m(boolean a, boolean b) throws Exception {\n" +
+                "    try (AutoCloseable first = a && b ? open() : null;\n" +
+                "         AutoCloseable second = () -> {\n" +
+                "             if (a) {\n" +
+                "                 while (b) {\n" +
+                "                     b = false;\n" +
+                "                 }\n" +
+                "             }\n" +
+                "         }) {\n" +
+                "        run();\n" +
+                "    }\n" +
+                "}");
+        // ?:, && and, in the lambda of the second resource, if and while
+        assertEquals(4, visitor.getBranchCount());
+        // Only the try: the if and while of the resources would be at depth 2 and 3
+        assertEquals(1, visitor.getMaxDepth());
+    }
+
+    public void testConstructorBody() {
+        ConstructorDeclaration constructor = GitUtils.parseCompilationUnit(
+                "class T {\n" +
+                "    int a;\n" +
+                "    T(int a, int b, int c, int d, int e) {\n" +
+                "        if (a > b) {\n" +
+                "            this.a = a;\n" +
+                "        }\n" +
+                "    }\n" +
+                "}").findFirst(ConstructorDeclaration.class).orElseThrow();
+
+        MethodMetrics metrics = MetricCalculator.calculateMetrics(constructor.getBody(), constructor.getParameters().size());
+        assertEquals(5, metrics.getNumParameters());
+        assertEquals(1, metrics.getNumberOfBranches());
+        assertEquals(1, metrics.getNestingDepth());
+        // The closing brace of the if is not a line of code
+        assertEquals(2, metrics.getLoc());
+        // Long parameter list
+        assertEquals(1, metrics.getNumberOfCodeSmells());
+        // The body keeps its parent: no fake method is built around it
+        assertSame(constructor, constructor.getBody().getParentNode().orElseThrow());
+    }
+
+    public void testMethodWithoutBodyOnlyHasParameters() {
+        MethodMetrics metrics = MetricCalculator.calculateMetrics(method("abstract int m(int a, int b);"));
+        assertEquals(2, metrics.getNumParameters());
+        assertEquals(0, metrics.getLoc());
+        assertEquals(0, metrics.getNumberOfBranches());
+        assertEquals(0, metrics.getNestingDepth());
+        assertEquals(0, metrics.getNumberOfCodeSmells());
+    }
+
+    public void testMagicNumbers() {
+        // 0, 1 and -1 are not magic, nor is a literal that initializes a variable
+        MethodMetricsVisitor visitor = visit("int m(int x) {\n    int limit = 42;\n    return x * 7 + limit - 1 + 0 - 3;\n}");
+        assertEquals(2, visitor.getMagicNumberCount());
+        assertEquals(1, smellsOf("int m(int x) {\n    return x * 7 - 3;\n}"));
+        // A single magic number is not a smell
+        assertEquals(0, smellsOf("int m(int x) {\n    return x * 7;\n}"));
+    }
+
+    public void testMissingDefaultInSwitch() {
+        assertTrue(visit("void m(int k) {\n    switch (k) {\n        case 1:\n            run();\n    }\n}").hasMissingDefaultInSwitch());
+        assertFalse(visit("void m(int k) {\n    switch (k) {\n        case 1:\n            run();\n        default:\n    }\n}").hasMissingDefaultInSwitch());
+        assertEquals(1, smellsOf("void m(int k) {\n    switch (k) {\n        case 1:\n            run();\n    }\n}"));
+    }
+
+    public void testEmptyCatchBlock() {
+        assertTrue(visit("void m() {\n    try {\n        run();\n    } catch (Exception e) {\n    }\n}").hasEmptyCatchBlock());
+        assertFalse(visit("void m() {\n    try {\n        run();\n    } catch (Exception e) {\n        log(e);\n    }\n}").hasEmptyCatchBlock());
+        assertEquals(1, smellsOf("void m() {\n    try {\n        run();\n    } catch (Exception e) {\n    }\n}"));
+    }
+
+    public void testReturningNull() {
+        // Only a return statement of the null literal
+        assertFalse(visit("Object m(Object o) {\n    return o == null ? o : null;\n}").isReturningNull());
+        assertTrue(visit("Object m(Object o) {\n    if (o == null) {\n        return null;\n    }\n    return o;\n}").isReturningNull());
+        assertEquals(1, smellsOf("Object m() {\n    return null;\n}"));
+    }
+
+    public void testMessageChainsOfThreeCalls() {
+        // count() is called on filter() on map() on stream(): three calls in its scope
+        assertTrue(visit("long m(java.util.List<String> l) {\n    return l.stream().map(String::trim).filter(s -> s.isEmpty()).count();\n}").hasMessageChain());
+        assertFalse(visit("int m(java.util.List<String> l) {\n    return l.get(0).trim().length();\n}").hasMessageChain());
+        assertEquals(1, smellsOf("Object m(A a) {\n    return a.b().c().d().e();\n}"));
+    }
+
+    public void testSizeSmells() {
+        StringBuilder longBody = new StringBuilder("void m() {\n");
+        for (int i = 0; i < 31; i++) {
+            longBody.append("    run();\n");
+        }
+        // Long method: more than 30 LOC
+        assertEquals(1, smellsOf(longBody.append("}").toString()));
+
+        // Complex method: more than 7 branches
+        StringBuilder complexBody = new StringBuilder("void m(int a) {\n");
+        for (int i = 0; i < 8; i++) {
+            complexBody.append("    if (a == ").append(i).append(") run();\n");
+        }
+        MethodMetrics complex = MetricCalculator.calculateMetrics(method(complexBody.append("}").toString()));
+        assertEquals(8, complex.getNumberOfBranches());
+        // The literals 2..7 are magic numbers as well
+        assertEquals(2, complex.getNumberOfCodeSmells());
+
+        // Deeply nested: more than 4 levels
+        assertEquals(1, smellsOf("void m(boolean a) {\n    if (a) {\n        if (a) {\n            if (a) {\n"
+                + "                if (a) {\n                    if (a) {\n                        run();\n"
+                + "                    }\n                }\n            }\n        }\n    }\n}"));
+    }
+
+    private static int smellsOf(String method) {
+        return MetricCalculator.calculateMetrics(method(method)).getNumberOfCodeSmells();
+    }
+
+    private static MethodMetricsVisitor visit(String method) {
+        MethodMetricsVisitor visitor = new MethodMetricsVisitor();
+        BlockStmt body = method(method).getBody().orElseThrow();
+        body.accept(visitor, null);
+        return visitor;
+    }
+
+    private static MethodDeclaration method(String method) {
+        return GitUtils.parseCompilationUnit("abstract class T {\n" + method + "\n}")
+                .findFirst(MethodDeclaration.class).orElseThrow();
+    }
+}
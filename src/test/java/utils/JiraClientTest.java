@@ -0,0 +1,338 @@
+package utils;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import junit.framework.TestCase;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Formatter;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+import java.util.logging.SimpleFormatter;
+import java.util.stream.Collectors;
+
+// JiraClient against a local stub of the search API: capped pages, retries, concurrent pages merged
+// in order, pages that do not add up to the total and recorded pages of an expired search
+public class JiraClientTest extends TestCase {
+
+    private static final String SEARCH_PATH = "/rest/api/2/search?jql=project=TEST";
+
+    private StubJira stub;
+    private TempDirectory tempDirectory;
+    private Path cacheDir;
+    // Held here, so the handler added by captureWarnings is not lost with a collected logger
+    private final Logger clientLogger = Logger.getLogger(JiraClient.class.getName());
+    private Handler warningHandler;
+
+    @Override
+    protected void setUp() throws Exception {
+        stub = new StubJira();
+        tempDirectory = new TempDirectory("jira-client-test");
+        cacheDir = tempDirectory.getPath();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        if (warningHandler != null) {
+            clientLogger.removeHandler(warningHandler);
+        }
+        stub.stop();
+        tempDirectory.close();
+    }
+
+    public void testServerCapOnMaxResultsGivesThePageSize() throws IOException {
+        stub.total = 30;
+        stub.cap = 7;
+
+        assertEquals(expectedKeys(30), search(4));
+        // After the first page the client asks for the size the server applied
+        for (String query : stub.queries()) {
+            if (!query.contains("startAt=0&")) {
+                assertTrue(query, query.endsWith("maxResults=7"));
+            }
+        }
+        assertEquals(5, stub.queries().size());
+    }
+
+    public void testRetriesOn429And5xxHonourRetryAfter() throws IOException {
+        stub.total = 30;
+        stub.cap = 10;
+        stub.failures.put(10, new ArrayDeque<>(List.of(429, 503)));
+        stub.failures.put(20, new ArrayDeque<>(List.of(500)));
+
+        long start = System.nanoTime();
+        assertEquals(expectedKeys(30), search(2));
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertEquals(3, stub.requestsFor(10));
+        assertEquals(2, stub.requestsFor(20));
+        // The 429 asks for 1 s, more than the first backoff
+        assertTrue("Retry-After not honoured: " + elapsedMillis + " ms", elapsedMillis >= 1000);
+    }
+
+    public void testConcurrentPagesAreMergedInOrder() throws IOException {
+        stub.total = 95;
+        stub.cap = 10;
+        // The later pages answer first
+        stub.latencyMillis = startAt -> Math.max(0, 200 - 2 * startAt);
+
+        List<String> sequential = search(1);
+        assertEquals(expectedKeys(95), sequential);
+        assertEquals(sequential, search(4));
+        assertEquals(sequential, search(16));
+    }
+
+    public void testShortPageIsFetchedAgainSequentially() throws IOException {
+        stub.total = 30;
+        stub.cap = 10;
+        stub.shortOnce.add(10);
+
+        List<String> warnings = captureWarnings();
+        assertEquals(expectedKeys(30), search(4));
+        assertEquals(1, warnings.size());
+        assertTrue(warnings.get(0), warnings.get(0).contains("returned 29 issues instead of 30"));
+    }
+
+    public void testTotalChangedBetweenPagesIsFetchedAgainSequentially() throws IOException {
+        stub.total = 30;
+        stub.cap = 10;
+        // One more issue right after the first page was served
+        stub.growAfterFirstPage = true;
+
+        List<String> warnings = captureWarnings();
+        assertEquals(expectedKeys(31), search(4));
+        assertEquals(1, warnings.size());
+        assertTrue(warnings.get(0), warnings.get(0).contains("changed from 30 on the first page to [31]"));
+    }
+
+    // Messages of the warnings the client logs from now on
+    private List<String> captureWarnings() {
+        List<String> warnings = Collections.synchronizedList(new ArrayList<>());
+        Formatter formatter = new SimpleFormatter();
+        warningHandler = new Handler() {
+            @Override
+            public void publish(LogRecord record) {
+                if (record.getLevel() == Level.WARNING) {
+                    warnings.add(formatter.formatMessage(record));
+                }
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        clientLogger.addHandler(warningHandler);
+        return warnings;
+    }
+
+    public void testRecordedPagesAreReusedWhileTheFirstOneIs() throws IOException {
+        stub.total = 30;
+        stub.cap = 10;
+        JiraResponseCache cache = new JiraResponseCache(cacheDir, Duration.ofHours(1), false);
+
+        List<String> recorded = search(4, cache);
+        int requests = stub.queries().size();
+        assertEquals(recorded, search(4, cache));
+        assertEquals(requests, stub.queries().size());
+    }
+
+    public void testResponsesOfTheRunAreReusedWithoutTtl() throws IOException {
+        stub.total = 30;
+        stub.cap = 10;
+        JiraResponseCache cache = new JiraResponseCache(cacheDir, Duration.ZERO, false);
+
+        List<String> fetched = search(4, cache);
+        int requests = stub.queries().size();
+        assertEquals(fetched, search(4, cache));
+        assertEquals(requests, stub.queries().size());
+
+        // A cache of a later run asks the server again
+        assertEquals(fetched, search(4, new JiraResponseCache(cacheDir, Duration.ZERO, false)));
+        assertEquals(2 * requests, stub.queries().size());
+    }
+
+    public void testSearchExpiresAsAUnit() throws IOException {
+        stub.total = 30;
+        stub.cap = 10;
+        stub.newestFirst = true;
+        JiraResponseCache cache = new JiraResponseCache(cacheDir, Duration.ofHours(1), false);
+        search(4, cache);
+
+        // Only the first page has expired, and a new issue shifted all the others by one
+        String firstPageUrl = stub.baseUrl() + SEARCH_PATH + "&startAt=0&maxResults=1000";
+        String firstPage;
+        try (BufferedReader body = cache.openBody(cache.find(firstPageUrl).orElseThrow())) {
+            firstPage = body.lines().collect(Collectors.joining("\n"));
+        }
+        Clock twoHoursAgo = Clock.offset(Clock.systemUTC(), Duration.ofHours(-2));
+        new JiraResponseCache(cacheDir, Duration.ofHours(1), false, twoHoursAgo)
+                .record(firstPageUrl, new ByteArrayInputStream(firstPage.getBytes(StandardCharsets.UTF_8)));
+        stub.total = 31;
+        int requests = stub.queries().size();
+
+        // A later run, which did not record the pages itself
+        List<String> expected = expectedKeys(31);
+        Collections.reverse(expected);
+        assertEquals(expected, search(4, new JiraResponseCache(cacheDir, Duration.ofHours(1), false)));
+        // The four pages are asked again at once, without a sequential walk
+        assertEquals(requests + 4, stub.queries().size());
+    }
+
+    private List<String> search(int concurrency) throws IOException {
+        return search(concurrency, new JiraResponseCache(cacheDir, Duration.ZERO, false));
+    }
+
+    private List<String> search(int concurrency, JiraResponseCache cache) throws IOException {
+        JiraClient client = new JiraClient(stub.baseUrl(), concurrency, cache);
+        return client.searchAll(SEARCH_PATH, 1000, reader -> {
+            String key = null;
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if (reader.nextName().equals("key")) {
+                    key = reader.nextString();
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+            return key;
+        });
+    }
+
+    private static List<String> expectedKeys(int count) {
+        List<String> keys = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            keys.add("TEST-" + i);
+        }
+        return keys;
+    }
+
+    private interface Latency {
+        long of(int startAt);
+    }
+
+    // Search endpoint over issues TEST-0 .. TEST-(total - 1)
+    private static class StubJira {
+        volatile int total;
+        volatile int cap = Integer.MAX_VALUE;
+        volatile Latency latencyMillis = startAt -> 0;
+        volatile boolean growAfterFirstPage;
+        // The newest issue first, so a new one shifts all the others
+        volatile boolean newestFirst;
+        // Statuses answered to the first requests of a page, by startAt
+        final Map<Integer, Deque<Integer>> failures = new ConcurrentHashMap<>();
+        // Pages answered once with one issue less
+        final Set<Integer> shortOnce = ConcurrentHashMap.newKeySet();
+
+        private final List<String> queries = Collections.synchronizedList(new ArrayList<>());
+        private final HttpServer server;
+        private final ExecutorService executor = Executors.newCachedThreadPool();
+
+        StubJira() throws IOException {
+            server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+            server.createContext("/rest/api/2/search", this::handle);
+            server.setExecutor(executor);
+            server.start();
+        }
+
+        String baseUrl() {
+            return "http://127.0.0.1:" + server.getAddress().getPort();
+        }
+
+        List<String> queries() {
+            return new ArrayList<>(queries);
+        }
+
+        int requestsFor(int startAt) {
+            int requests = 0;
+            for (String query : queries()) {
+                if (query.contains("startAt=" + startAt + "&")) {
+                    requests++;
+                }
+            }
+            return requests;
+        }
+
+        void stop() {
+            server.stop(0);
+            executor.shutdownNow();
+        }
+
+        private void handle(HttpExchange exchange) throws IOException {
+            String query = exchange.getRequestURI().getRawQuery();
+            queries.add(query);
+            int startAt = intParameter(query, "startAt");
+            int maxResults = Math.min(cap, intParameter(query, "maxResults"));
+
+            try {
+                Thread.sleep(latencyMillis.of(startAt));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+
+            Deque<Integer> statuses = failures.get(startAt);
+            Integer status = statuses == null ? null : statuses.poll();
+            if (status != null) {
+                if (status == 429) {
+                    exchange.getResponseHeaders().add("Retry-After", "1");
+                }
+                exchange.sendResponseHeaders(status, -1);
+                exchange.close();
+                return;
+            }
+
+            int pageTotal = total;
+            int end = Math.min(pageTotal, startAt + maxResults);
+            if (shortOnce.remove(startAt)) {
+                end--;
+            }
+            StringBuilder body = new StringBuilder("{\"startAt\":").append(startAt)
+                    .append(",\"maxResults\":").append(maxResults)
+                    .append(",\"total\":").append(pageTotal)
+                    .append(",\"issues\":[");
+            for (int i = startAt; i < end; i++) {
+                int number = newestFirst ? pageTotal - 1 - i : i;
+                body.append(i > startAt ? "," : "").append("{\"id\":\"").append(number).append("\",\"key\":\"TEST-").append(number).append("\"}");
+            }
+            body.append("]}");
+            if (startAt == 0 && growAfterFirstPage) {
+                growAfterFirstPage = false;
+                total++;
+            }
+
+            byte[] bytes = body.toString().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream output = exchange.getResponseBody()) {
+                output.write(bytes);
+            }
+        }
+
+        private static int intParameter(String query, String name) {
+            for (String parameter : query.split("&")) {
+                if (parameter.startsWith(name + "=")) {
+                    return Integer.parseInt(parameter.substring(name.length() + 1));
+                }
+            }
+            throw new IllegalArgumentException("Missing " + name + " in " + query);
+        }
+    }
+}
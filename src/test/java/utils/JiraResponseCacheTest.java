@@ -0,0 +1,91 @@
+package utils;
+
+import junit.framework.TestCase;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Clock;
+import java.time.Duration;
+
+// The age of a recorded response is the fetch time stored in it, not the time of the file
+public class JiraResponseCacheTest extends TestCase {
+
+    private static final Duration TTL = Duration.ofHours(1);
+
+    private TempDirectory tempDirectory;
+
+    @Override
+    protected void setUp() throws IOException {
+        tempDirectory = new TempDirectory("jira-cache-test");
+    }
+
+    @Override
+    protected void tearDown() throws IOException {
+        tempDirectory.close();
+    }
+
+    public void testExpiredAndFreshEntries() throws IOException {
+        record("expired", Duration.ofHours(-2));
+        record("fresh", Duration.ofMinutes(-30));
+
+        JiraResponseCache cache = cache(TTL);
+        assertFalse(cache.find("expired").isPresent());
+        assertTrue(cache.find("fresh").isPresent());
+        assertEquals("{\"url\":\"fresh\"}", readBody(cache, "fresh"));
+    }
+
+    public void testFileTimeIsIgnored() throws IOException {
+        Path file = record("expired", Duration.ofHours(-2));
+        Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+        assertFalse(cache(TTL).find("expired").isPresent());
+    }
+
+    public void testFetchTimeAheadOfTheClockIsExpired() throws IOException {
+        record("future", Duration.ofMinutes(10));
+        assertFalse(cache(TTL).find("future").isPresent());
+    }
+
+    public void testResponsesOfThisCacheAreReusedWithoutTtl() throws IOException {
+        JiraResponseCache cache = cache(Duration.ZERO);
+        cache.record("url", body("url"));
+        assertTrue(cache.find("url").isPresent());
+        assertFalse(cache(Duration.ZERO).find("url").isPresent());
+    }
+
+    public void testOfflineReusesExpiredEntries() throws IOException {
+        record("expired", Duration.ofDays(-30));
+        assertTrue(new JiraResponseCache(tempDirectory.getPath(), TTL, true).find("expired").isPresent());
+    }
+
+    public void testEntryWithoutFetchTimeIsNotReused() throws IOException {
+        Path file = record("old", Duration.ZERO);
+        Files.write(file, "{\"url\":\"old\"}".getBytes(StandardCharsets.UTF_8));
+        assertFalse(cache(TTL).find("old").isPresent());
+        assertFalse(new JiraResponseCache(tempDirectory.getPath(), TTL, true).find("old").isPresent());
+    }
+
+    // Recorded by a cache whose clock is offset from now
+    private Path record(String url, Duration offset) throws IOException {
+        return new JiraResponseCache(tempDirectory.getPath(), TTL, false, Clock.offset(Clock.systemUTC(), offset))
+                .record(url, body(url));
+    }
+
+    private JiraResponseCache cache(Duration timeToLive) {
+        return new JiraResponseCache(tempDirectory.getPath(), timeToLive, false);
+    }
+
+    private static ByteArrayInputStream body(String url) {
+        return new ByteArrayInputStream(("{\"url\":\"" + url + "\"}").getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String readBody(JiraResponseCache cache, String url) throws IOException {
+        try (BufferedReader reader = cache.openBody(cache.find(url).orElseThrow())) {
+            return reader.readLine();
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package utils;
+
+import com.github.javaparser.Range;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import controller.MetricCalculator;
+import junit.framework.TestCase;
+import model.JavaMethod;
+import model.ScannedMethod;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// The scanner must find the same methods as the parser (findAll of MethodDeclaration): same
+// signatures, ranges, order, body fingerprints and LOC. What it does not handle is left to the parser
+public class MethodScannerTest extends TestCase {
+
+    public void testFixtureMatchesParser() throws IOException {
+        assertSameAsParser(readFixture());
+    }
+
+    public void testLineEndingsMatchParser() throws IOException {
+        String fixture = readFixture();
+        assertSameAsParser(fixture.replace("\n", "\r\n"));
+        assertSameAsParser(fixture.replace("\n", "\r"));
+    }
+
+    // Real sources rather than the fixture. A file the scanner declines (null) is left to the parser and skipped
+    public void testProjectSourcesMatchParser() throws IOException {
+        List<Path> sources;
+        try (Stream<Path> files = Files.walk(Paths.get("src", "main", "java"))) {
+            sources = files.filter(p -> p.toString().endsWith(".java")).sorted().collect(Collectors.toList());
+        }
+        assertFalse(sources.isEmpty());
+        int scanned = 0;
+        for (Path source : sources) {
+            String content = new String(Files.readAllBytes(source), StandardCharsets.UTF_8);
+            if (MethodScanner.scan(content) != null) {
+                assertSameAsParser(source + ": ", content);
+                scanned++;
+            }
+        }
+        assertTrue("The scanner should handle most project sources", scanned * 2 > sources.size());
+    }
+
+    public void testBodiesAreMeasuredOnFirstUse() {
+        List<ScannedMethod> scanned = MethodScanner.scan("class A {\n    int m() {\n        return 1;\n    }\n\n    int n() {\n        return 2;\n    }\n}\n");
+        assertNotNull(scanned);
+        assertFalse(scanned.get(0).isMeasured());
+        assertFalse(scanned.get(1).isMeasured());
+
+        assertEquals(1, scanned.get(0).getLoc());
+        assertTrue(scanned.get(0).isMeasured());
+        assertFalse(scanned.get(1).isMeasured());
+    }
+
+    public void testUnicodeEscapeIsLeftToParser() {
+        String source = "class A {\n    String m() {\n        return \"\\u0041\";\n    }\n}\n";
+        assertNull(MethodScanner.scan(source));
+        // The parser translates the escapes, so the methods are still found
+        assertEquals(GitUtils.parseMethods(source).keySet(), GitUtils.scanMethods(source).keySet());
+        assertTrue(GitUtils.scanMethods(source).containsKey("m()"));
+    }
+
+    public void testTextBlockIsLeftToParser() {
+        assertNull(MethodScanner.scan("class A {\n    String m() {\n        return \"\"\"\n            text\n            \"\"\";\n    }\n}\n"));
+    }
+
+    public void testRecordIsLeftToParser() {
+        assertNull(MethodScanner.scan("record Point(int x, int y) {\n    int sum() {\n        return x + y;\n    }\n}\n"));
+        assertNull(MethodScanner.scan("class A {\n    record Point(int x) {\n    }\n}\n"));
+    }
+
+    public void testSwitchRuleIsLeftToParser() {
+        assertNull(MethodScanner.scan("class A {\n    int m(int k) {\n        switch (k) {\n            case 1 -> {\n                return 2;\n            }\n"
+                + "            default -> {\n                return 0;\n            }\n        }\n    }\n}\n"));
+        assertNull(MethodScanner.scan("class A {\n    int m(int k) {\n        switch (k) {\n            case 1, 2:\n                return 2;\n"
+                + "            default:\n                return 0;\n        }\n    }\n}\n"));
+    }
+
+    public void testYieldIsLeftToParser() {
+        assertNull(MethodScanner.scan("class A {\n    int m(int k) {\n        int r = switch (k) {\n            case 1:\n                yield 2;\n"
+                + "            default:\n                yield 0;\n        };\n        return r;\n    }\n}\n"));
+    }
+
+    private static void assertSameAsParser(String source) {
+        assertSameAsParser("", source);
+    }
+
+    private static void assertSameAsParser(String file, String source) {
+        List<ScannedMethod> scanned = MethodScanner.scan(source);
+        assertNotNull("The scanner should handle the source", scanned);
+
+        List<MethodDeclaration> parsed = GitUtils.parseCompilationUnit(source).findAll(MethodDeclaration.class);
+        assertEquals(file + "method count", parsed.size(), scanned.size());
+        for (int i = 0; i < parsed.size(); i++) {
+            MethodDeclaration md = parsed.get(i);
+            ScannedMethod method = scanned.get(i);
+            String signature = file + JavaMethod.getSignature(md);
+            Range range = md.getRange().orElseThrow();
+
+            assertEquals(signature, JavaMethod.getSignature(md), method.getSignature());
+            assertEquals(signature, range.begin.line, method.getBeginLine());
+            assertEquals(signature, range.begin.column, method.getBeginColumn());
+            assertEquals(signature, range.end.line, method.getEndLine());
+            assertEquals(signature, range.end.column, method.getEndColumn());
+            assertEquals(signature, GitUtils.calculateBodyFingerprint(md), method.getBodyFingerprint());
+            assertEquals(signature, MetricCalculator.calculateLOC(md), method.getLoc());
+        }
+
+        assertEquals(file + "signatures", GitUtils.parseMethods(source).keySet(), GitUtils.scanMethods(source).keySet());
+    }
+
+    private String readFixture() throws IOException {
+        try (InputStream input = getClass().getResourceAsStream("/scanner/Fixture.java.txt")) {
+            assertNotNull("Missing fixture", input);
+            return new String(input.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package utils;
+
+import junit.framework.TestCase;
+import model.DatasetMetric;
+
+import java.util.Arrays;
+import java.util.List;
+
+// The settings are system properties: every test restores the ones it sets
+public class PipelineSettingsTest extends TestCase {
+
+    private static final String PROPORTION = "predictor.proportion";
+    private static final String METRICS = "predictor.metrics";
+    private static final String CHURN = "predictor.churn";
+    private static final String THREADS = "predictor.threads";
+    private static final String JIRA_CONCURRENCY = "predictor.jiraConcurrency";
+
+    @Override
+    protected void tearDown() {
+        System.clearProperty(PROPORTION);
+        System.clearProperty(METRICS);
+        System.clearProperty(CHURN);
+        System.clearProperty(THREADS);
+        System.clearProperty(JIRA_CONCURRENCY);
+    }
+
+    public void testProportionMethodDefaultsToIncrement() {
+        System.clearProperty(PROPORTION);
+        assertEquals(ProportionMethod.INCREMENT, PipelineSettings.getProportionMethod());
+    }
+
+    public void testProportionMethodIsCaseInsensitive() {
+        System.setProperty(PROPORTION, " median ");
+        assertEquals(ProportionMethod.MEDIAN, PipelineSettings.getProportionMethod());
+    }
+
+    public void testUnknownProportionMethodIsRejected() {
+        System.setProperty(PROPORTION, "WINDOWS");
+        try {
+            PipelineSettings.validate();
+            fail("A typo in the proportion method must stop the run");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("WINDOWS"));
+        }
+    }
+
+    public void testAllMetricsByDefault() {
+        System.clearProperty(METRICS);
+        assertEquals(Arrays.asList(DatasetMetric.values()), PipelineSettings.getDatasetMetrics());
+        System.setProperty(METRICS, " , ");
+        assertEquals(Arrays.asList(DatasetMetric.values()), PipelineSettings.getDatasetMetrics());
+    }
+
+    public void testSelectedMetricsAlwaysKeepLocAndNSmells() {
+        System.setProperty(METRICS, "nfix, #Branches,NFIX");
+        List<DatasetMetric> metrics = PipelineSettings.getDatasetMetrics();
+        // In column order, without repetitions
+        assertEquals(Arrays.asList(DatasetMetric.LOC, DatasetMetric.BRANCHES, DatasetMetric.NFIX, DatasetMetric.NSMELLS), metrics);
+        assertEquals(DatasetMetric.Cost.FIX_HISTORY, DatasetMetric.requiredCost(metrics));
+    }
+
+    public void testStaticMetricsNeedOnlyTheSnapshots() {
+        System.setProperty(METRICS, "static");
+        List<DatasetMetric> metrics = PipelineSettings.getDatasetMetrics();
+        assertEquals(Arrays.asList(DatasetMetric.LOC, DatasetMetric.PARAMETERS, DatasetMetric.BRANCHES,
+                DatasetMetric.NESTING_DEPTH, DatasetMetric.NSMELLS), metrics);
+        assertEquals(DatasetMetric.Cost.AST, DatasetMetric.requiredCost(metrics));
+    }
+
+    public void testUnknownMetricIsRejected() {
+        // Also when it is the only one, which must not become "all"
+        for (String value : new String[]{"NFix,Nsmell", "Revision"}) {
+            System.setProperty(METRICS, value);
+            try {
+                PipelineSettings.validate();
+                fail("A typo in the metrics must stop the run: " + value);
+            } catch (IllegalArgumentException e) {
+                assertTrue(e.getMessage(), e.getMessage().contains(value.substring(value.indexOf(',') + 1)));
+            }
+        }
+    }
+
+    public void testChurnModeDefaultsToLocDelta() {
+        System.clearProperty(CHURN);
+        assertEquals(ChurnMode.LOC_DELTA, PipelineSettings.getChurnMode());
+        System.setProperty(CHURN, " edits ");
+        assertEquals(ChurnMode.EDITS, PipelineSettings.getChurnMode());
+    }
+
+    public void testUnknownChurnModeIsRejected() {
+        System.setProperty(CHURN, "EDIT");
+        try {
+            PipelineSettings.validate();
+            fail("A typo in the churn mode must stop the run");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("EDIT"));
+            assertTrue(e.getMessage(), e.getMessage().contains("LOC_DELTA"));
+        }
+    }
+
+    public void testNonNumericCountsAreRejected() {
+        for (String name : new String[]{THREADS, JIRA_CONCURRENCY}) {
+            System.setProperty(name, "four");
+            try {
+                PipelineSettings.validate();
+                fail("A count that is not a number must stop the run: " + name);
+            } catch (IllegalArgumentException e) {
+                assertTrue(e.getMessage(), e.getMessage().contains(name));
+            }
+            System.clearProperty(name);
+        }
+        System.setProperty(THREADS, " 3 ");
+        assertEquals(3, PipelineSettings.getWorkerThreads());
+    }
+}
@@ -0,0 +1,35 @@
+package utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+// A temporary directory of a test, deleted with everything in it by close()
+public class TempDirectory implements AutoCloseable {
+
+    private final Path path;
+
+    public TempDirectory(String prefix) throws IOException {
+        this.path = Files.createTempDirectory(prefix);
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    // A path in the directory that no other call returns, for a cache or a checkpoint file
+    public Path newFile(String prefix, String suffix) {
+        return path.resolve(prefix + "-" + UUID.randomUUID() + suffix);
+    }
+
+    @Override
+    public void close() throws IOException {
+        try (Stream<Path> paths = Files.walk(path)) {
+            paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+}
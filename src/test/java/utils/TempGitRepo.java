@@ -0,0 +1,72 @@
+package utils;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.ZoneId;
+
+// A git repository in a temporary directory, built one commit at a time by a test. The repository is
+// in the "repo" subdirectory, so newFile gives paths outside its work tree. close() deletes it all
+public class TempGitRepo implements AutoCloseable {
+
+    private final TempDirectory directory;
+    private final Path workTree;
+    private final Git git;
+
+    public TempGitRepo(String prefix) throws IOException, GitAPIException {
+        this.directory = new TempDirectory(prefix);
+        this.workTree = directory.getPath().resolve("repo");
+        this.git = Git.init().setDirectory(workTree.toFile()).call();
+    }
+
+    public Repository getRepository() {
+        return git.getRepository();
+    }
+
+    public Git getGit() {
+        return git;
+    }
+
+    public Path newFile(String prefix, String suffix) {
+        return directory.newFile(prefix, suffix);
+    }
+
+    // Writes the file and stages it for the next commit
+    public void write(String path, String content) throws IOException, GitAPIException {
+        Path file = workTree.resolve(path);
+        Files.createDirectories(file.getParent());
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+        git.add().addFilepattern(path).call();
+    }
+
+    // Commits what is staged, with the default identity and the current time
+    public RevCommit commit(String message) throws GitAPIException {
+        return git.commit().setMessage(message).call();
+    }
+
+    public RevCommit commit(String path, String content, String message) throws IOException, GitAPIException {
+        write(path, content);
+        return commit(message);
+    }
+
+    // The author is also the committer
+    public RevCommit commit(String path, String content, String message, String author, Instant time) throws IOException, GitAPIException {
+        write(path, content);
+        PersonIdent ident = new PersonIdent(author, author.toLowerCase() + "@example.org", time, ZoneId.systemDefault());
+        return git.commit().setMessage(message).setAuthor(ident).setCommitter(ident).call();
+    }
+
+    @Override
+    public void close() throws IOException {
+        git.close();
+        directory.close();
+    }
+}